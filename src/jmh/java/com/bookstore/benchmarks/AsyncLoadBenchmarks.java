@@ -0,0 +1,138 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.AppConfig;
+import com.bookstore.async.RequestExecutor;
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.models.Customer;
+import com.bookstore.resources.AuthorResource;
+import com.bookstore.resources.BookResource;
+import com.bookstore.resources.CustomerResource;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Load test for the request execution modes: full Jersey dispatch (routing,
+// JSON, exception mappers) in-process, behind a "container" pool that is
+// deliberately smaller than the client count, like a saturated servlet pool.
+// Checkouts and cheap book reads share that pool; compare read latency and
+// checkout throughput across -p mode=off,pool,virtual ('virtual' falls back
+// to 'pool' before Java 21).
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AsyncLoadBenchmarks {
+    static final int CONTAINER_THREADS = 4;
+    static final int BOOKS = 1_000;
+    static final int CUSTOMERS = 1_000;
+
+    // Keep a strong reference so the level set below is not garbage collected
+    private static final Logger APP_LOGGER = Logger.getLogger("com.bookstore");
+    private static final URI BASE = URI.create("http://localhost/api/");
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({"off", "pool", "virtual"})
+        public String mode;
+
+        ApplicationHandler handler;
+        ExecutorService container;
+        int firstBookId;
+        int firstCustomerId;
+
+        @Setup
+        public void start() {
+            APP_LOGGER.setLevel(Level.WARNING);
+            handler = new ApplicationHandler(new AppConfig(RequestExecutor.Mode.valueOf(mode.toUpperCase(Locale.ROOT))));
+            container = Executors.newFixedThreadPool(CONTAINER_THREADS);
+
+            Author author = new Author(null, "Load", "Test", null);
+            new AuthorResource().createAuthor(author);
+            BookResource books = new BookResource();
+            for (int i = 0; i < BOOKS; i++) {
+                Book book = new Book(null, "Load " + i, author.getId(), String.format("979-%010d", i),
+                    2000, 9.99, CatalogState.STOCK_PER_BOOK);
+                books.createBook(book);
+                if (i == 0) firstBookId = book.getId();
+            }
+            CustomerResource customers = new CustomerResource();
+            for (int i = 0; i < CUSTOMERS; i++) {
+                Customer customer = new Customer(null, "Load", "Test", "load" + i + "@example.com", "secret");
+                customers.createCustomer(customer);
+                if (i == 0) firstCustomerId = customer.getId();
+            }
+        }
+
+        @TearDown
+        public void stop() {
+            container.shutdownNow();
+            RequestExecutor.configure(RequestExecutor.Mode.OFF);
+        }
+
+        // The container thread only runs dispatch; a suspended request completes later
+        int call(String method, String path, String json) throws Exception {
+            ContainerRequest request = new ContainerRequest(BASE, BASE.resolve(path), method, null,
+                new MapPropertiesDelegate(), null);
+            if (json != null) {
+                request.getHeaders().add("Content-Type", "application/json");
+                request.setEntityStream(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            Future<Future<ContainerResponse>> dispatched = container.submit(() -> handler.apply(request, body));
+            return dispatched.get().get().getStatus();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Shopper {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+        int customerId;
+
+        @Setup
+        public void pickCustomer(Server server) {
+            customerId = server.firstCustomerId + NEXT.getAndIncrement() % CUSTOMERS;
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(12)
+    public int checkout(Server server, Shopper shopper) throws Exception {
+        int bookId = server.firstBookId + ThreadLocalRandom.current().nextInt(BOOKS);
+        server.call("POST", "customers/" + shopper.customerId + "/cart/items",
+            "{\"bookId\":" + bookId + ",\"quantity\":1}");
+        return server.call("POST", "customers/" + shopper.customerId + "/orders", null);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public int readBook(Server server) throws Exception {
+        int bookId = server.firstBookId + ThreadLocalRandom.current().nextInt(BOOKS);
+        return server.call("GET", "books/" + bookId, null);
+    }
+}
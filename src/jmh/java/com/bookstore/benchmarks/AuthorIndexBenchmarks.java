@@ -0,0 +1,73 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.resources.BookResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Author lookups through the authorId index against the full catalog scan they
+// replaced, at the seeded catalog sizes. 'booksByAuthor*' list one author's books
+// as GET /authors/{id}/books does. 'authorHasBooks*' run the DELETE /authors/{id}
+// check for an author without books, the case where a delete succeeds and the
+// scan has to visit every book.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AuthorIndexBenchmarks {
+
+    int authorWithoutBooks;
+
+    @Setup
+    public void createAuthorWithoutBooks(CatalogState catalog) {
+        Author author = new Author(null, "No", "Books", null);
+        catalog.authorResource.createAuthor(author);
+        authorWithoutBooks = author.getId();
+    }
+
+    private static Integer randomAuthorId(CatalogState catalog) {
+        return catalog.firstAuthorId + ThreadLocalRandom.current().nextInt(catalog.authorCount);
+    }
+
+    @Benchmark
+    public List<Book> booksByAuthorScan(CatalogState catalog) {
+        Integer id = randomAuthorId(catalog);
+        return BookResource.books.values().stream()
+                .filter(book -> book.getAuthorId().equals(id))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Book> booksByAuthorIndex(CatalogState catalog) {
+        List<Book> books = new ArrayList<>();
+        for (Integer bookId : BookResource.getBookIdsByAuthor(randomAuthorId(catalog))) {
+            Book book = BookResource.books.get(bookId);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    @Benchmark
+    public boolean authorHasBooksScan() {
+        Integer id = authorWithoutBooks;
+        return BookResource.books.values().stream()
+                .anyMatch(book -> book.getAuthorId().equals(id));
+    }
+
+    @Benchmark
+    public boolean authorHasBooksIndex() {
+        return !BookResource.getBookIdsByAuthor(authorWithoutBooks).isEmpty();
+    }
+}
@@ -0,0 +1,125 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.AppConfig;
+import com.bookstore.async.RequestExecutor;
+import com.bookstore.models.Author;
+import com.bookstore.resources.AuthorResource;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Catalog ingest over real HTTP on localhost: RECORDS books as RECORDS single
+// POST /books round trips on one keep-alive connection, against one
+// POST /books/batch carrying all of them as a JSON array or as NDJSON.
+// Scores are books created per second; every record is valid and has a fresh ISBN.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class BatchImportBenchmarks {
+    static final int RECORDS = 1_000;
+
+    // Keep strong references so the levels set below are not garbage collected
+    private static final Logger APP_LOGGER = Logger.getLogger("com.bookstore");
+    private static final Logger SERVER_LOGGER = Logger.getLogger("org.glassfish");
+
+    HttpServer server;
+    HttpClient http;
+    URI books;
+    URI batch;
+    int authorId;
+    long nextIsbn;
+
+    final String[] singles = new String[RECORDS];
+    String jsonArray;
+    String ndjson;
+
+    @Setup
+    public void start() throws IOException {
+        APP_LOGGER.setLevel(java.util.logging.Level.WARNING);
+        SERVER_LOGGER.setLevel(java.util.logging.Level.SEVERE);
+        server = GrizzlyHttpServerFactory.createHttpServer(
+            URI.create("http://localhost:0/api"), new AppConfig(RequestExecutor.Mode.OFF), false);
+        server.start();
+        URI base = URI.create("http://localhost:" + server.getListeners().iterator().next().getPort() + "/api/");
+        books = base.resolve("books");
+        batch = base.resolve("books/batch");
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        Author author = new Author(null, "Batch", "Import", null);
+        new AuthorResource().createAuthor(author);
+        authorId = author.getId();
+    }
+
+    @TearDown
+    public void stop() {
+        server.shutdownNow();
+    }
+
+    // Fresh ISBNs for every invocation, formatted outside the measurement
+    @Setup(Level.Invocation)
+    public void nextRecords() {
+        StringBuilder array = new StringBuilder(RECORDS * 128).append('[');
+        StringBuilder lines = new StringBuilder(RECORDS * 128);
+        for (int i = 0; i < RECORDS; i++) {
+            String record = String.format(
+                "{\"title\":\"Imported %d\",\"authorId\":%d,\"isbn\":\"975-%010d\",\"publicationYear\":2000,\"price\":9.99,\"stock\":10}",
+                nextIsbn, authorId, nextIsbn);
+            nextIsbn++;
+            singles[i] = record;
+            array.append(i == 0 ? "" : ",").append(record);
+            lines.append(record).append('\n');
+        }
+        jsonArray = array.append(']').toString();
+        ndjson = lines.toString();
+    }
+
+    private int post(URI uri, String contentType, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header("Content-Type", contentType)
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200 && status != 201) {
+            throw new IllegalStateException("POST " + uri + " returned " + status);
+        }
+        return status;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int singlePosts() throws Exception {
+        int status = 0;
+        for (String record : singles) {
+            status = post(books, "application/json", record);
+        }
+        return status;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int batchJsonArray() throws Exception {
+        return post(batch, "application/json", jsonArray);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int batchNdjson() throws Exception {
+        return post(batch, "application/x-ndjson", ndjson);
+    }
+}
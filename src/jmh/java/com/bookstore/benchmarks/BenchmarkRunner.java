@@ -0,0 +1,32 @@
+package com.bookstore.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the suite once per thread count with the GC profiler attached, so every
+// result includes allocation rate next to the modes each benchmark declares.
+// Regular JMH options are accepted, e.g. -p bookCount=10000 or a benchmark regex;
+// an explicit -t runs only that thread count.
+//   -Djmh.threads=1,4,16   thread counts to sweep when -t is not given
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        String[] threadCounts = cli.getThreads().hasValue()
+            ? new String[] {String.valueOf(cli.getThreads().get())}
+            : System.getProperty("jmh.threads", "1,4,16").split(",");
+
+        for (String threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(cli)
+                .threads(Integer.parseInt(threads.trim()))
+                .addProfiler(GCProfiler.class);
+            if (!cli.getForkCount().hasValue()) options.forks(1);
+            if (!cli.getWarmupIterations().hasValue()) options.warmupIterations(3);
+            if (!cli.getMeasurementIterations().hasValue()) options.measurementIterations(5);
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.models.Customer;
+import com.bookstore.resources.AuthorResource;
+import com.bookstore.resources.BookResource;
+import com.bookstore.resources.CustomerResource;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.logging.Logger;
+
+// Seeds the static stores once per trial through the resources themselves, so
+// every secondary index is populated exactly as in production.
+@State(Scope.Benchmark)
+public class CatalogState {
+    static final int BOOKS_PER_AUTHOR = 100;
+    static final int CUSTOMERS = 10_000;
+    // Large enough that cart and checkout benchmarks never run out of stock
+    static final int STOCK_PER_BOOK = 1_000_000_000;
+
+    // Keep a strong reference so the level set below is not garbage collected
+    private static final Logger APP_LOGGER = Logger.getLogger("com.bookstore");
+
+    @Param({"10000", "1000000", "10000000"})
+    public int bookCount;
+
+    public int authorCount;
+    public int firstBookId;
+    public int firstAuthorId;
+    public int firstCustomerId;
+
+    public final BookResource bookResource = new BookResource();
+    public final AuthorResource authorResource = new AuthorResource();
+    public final CustomerResource customerResource = new CustomerResource();
+
+    @Setup
+    public void seed() {
+        APP_LOGGER.setLevel(java.util.logging.Level.WARNING);
+
+        authorCount = Math.max(1, bookCount / BOOKS_PER_AUTHOR);
+        for (int i = 0; i < authorCount; i++) {
+            Author author = new Author(null, "First" + i, "Last" + i, null);
+            authorResource.createAuthor(author);
+            if (i == 0) firstAuthorId = author.getId();
+        }
+
+        for (int i = 0; i < bookCount; i++) {
+            Book book = new Book(null, "Title " + i, firstAuthorId + (i % authorCount),
+                String.format("978-%010d", i), 2000, 9.99, STOCK_PER_BOOK);
+            bookResource.createBook(book);
+            if (i == 0) firstBookId = book.getId();
+        }
+
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = new Customer(null, "First" + i, "Last" + i, "customer" + i + "@example.com", "secret");
+            customerResource.createCustomer(customer);
+            if (i == 0) firstCustomerId = customer.getId();
+        }
+    }
+}
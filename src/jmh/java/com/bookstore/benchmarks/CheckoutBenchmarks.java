@@ -0,0 +1,102 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.models.Customer;
+import com.bookstore.resources.AuthorResource;
+import com.bookstore.resources.BookResource;
+import com.bookstore.resources.CartResource;
+import com.bookstore.resources.CustomerResource;
+import com.bookstore.resources.OrderResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Multi-line checkouts through the real path: each line is added to the cart
+// (Inventory.reserve, a CAS on the book's stock), then the cart is checked out
+// under its own lock. Each line is drawn from a small set of hot books shared by
+// every thread with probability hotPercent, otherwise from books private to the
+// thread; 0 measures disjoint checkouts, 100 full overlap. Overlap only shows up
+// as CAS retries on the hot books' stock, since checkout itself takes no book locks.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CheckoutBenchmarks {
+    static final int LINES_PER_CHECKOUT = 4;
+    static final int HOT_BOOKS = 8;
+    static final int BOOKS_PER_THREAD = 1024;
+
+    private static final AtomicInteger NEXT_ISBN = new AtomicInteger();
+    // Keep a strong reference so the level set below is not garbage collected
+    private static final Logger APP_LOGGER = Logger.getLogger("com.bookstore");
+
+    @State(Scope.Benchmark)
+    public static class HotBooks {
+        @Param({"0", "10", "50", "100"})
+        public int hotPercent;
+
+        final int[] bookIds = new int[HOT_BOOKS];
+        int authorId;
+
+        @Setup
+        public void seed() {
+            APP_LOGGER.setLevel(Level.WARNING);
+            Author author = new Author(null, "Checkout", "Bench", null);
+            new AuthorResource().createAuthor(author);
+            authorId = author.getId();
+            for (int i = 0; i < HOT_BOOKS; i++) {
+                bookIds[i] = newBook(authorId);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Buyer {
+        final int[] own = new int[BOOKS_PER_THREAD];
+        final CartResource cartResource = new CartResource();
+        final OrderResource orderResource = new OrderResource();
+        final CartResource.CartItemRequest item = new CartResource.CartItemRequest();
+        int customerId;
+
+        @Setup
+        public void seed(HotBooks hot) {
+            for (int i = 0; i < BOOKS_PER_THREAD; i++) {
+                own[i] = newBook(hot.authorId);
+            }
+            Customer customer = new Customer(null, "Checkout", "Bench",
+                "checkout" + NEXT_ISBN.getAndIncrement() + "@example.com", "secret");
+            new CustomerResource().createCustomer(customer);
+            customerId = customer.getId();
+            item.setQuantity(1);
+        }
+    }
+
+    private static int newBook(int authorId) {
+        Book book = new Book(null, "Checkout", authorId, String.format("974-%010d", NEXT_ISBN.getAndIncrement()),
+            2000, 9.99, CatalogState.STOCK_PER_BOOK);
+        new BookResource().createBook(book);
+        return book.getId();
+    }
+
+    @Benchmark
+    public Response checkout(HotBooks hot, Buyer buyer) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < LINES_PER_CHECKOUT; i++) {
+            buyer.item.setBookId(random.nextInt(100) < hot.hotPercent
+                ? hot.bookIds[random.nextInt(HOT_BOOKS)]
+                : buyer.own[random.nextInt(BOOKS_PER_THREAD)]);
+            buyer.cartResource.addToCart(buyer.customerId, buyer.item);
+        }
+        return buyer.orderResource.createOrder(buyer.customerId);
+    }
+}
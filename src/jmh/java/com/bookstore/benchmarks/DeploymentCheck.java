@@ -0,0 +1,146 @@
+package com.bookstore.benchmarks;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.ContextConfig;
+import org.apache.catalina.startup.Tomcat;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Deployment check for the WAR as a servlet container runs it: deploys
+// target/BookstoreAPI.war with its own web.xml on an embedded Tomcat 9, once per
+// request execution mode, and walks a shopper from signup to checkout. The cart
+// and order handlers are @Suspended, which only works when the servlet is
+// async-supported; LoadTest and the JMH benchmarks run on Grizzly or call the
+// resources directly, so they cannot catch a broken descriptor. After each
+// undeploy it also checks that no bookstore-* thread is left running, since a
+// leftover thread pins the old class loader on every redeploy.
+//   mvn -Pjmh package exec:exec -Djmh.main=com.bookstore.benchmarks.DeploymentCheck
+// Options, as --name=value:
+//   --war=target/BookstoreAPI.war
+//   --modes=off,pool    values of -Dbookstore.async to deploy with, one context each
+// Add -Dbookstore.data.dir (and cart expiry or archiving) to check their threads too.
+// Exits with status 1 when any request gets an unexpected status or a thread leaks.
+public class DeploymentCheck {
+    // Keep strong references so the levels set below are not garbage collected
+    private static final Logger APP_LOGGER = Logger.getLogger("com.bookstore");
+    private static final Logger TOMCAT_LOGGER = Logger.getLogger("org.apache");
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private int failures;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        Path war = Paths.get(options.getOrDefault("war", "target/BookstoreAPI.war")).toAbsolutePath();
+        if (!Files.isRegularFile(war)) {
+            throw new IllegalArgumentException(war + " not found; run mvn package first");
+        }
+        boolean passed = new DeploymentCheck().run(war, options.getOrDefault("modes", "off,pool").split(","));
+        System.exit(passed ? 0 : 1);
+    }
+
+    boolean run(Path war, String[] modes) throws Exception {
+        APP_LOGGER.setLevel(Level.WARNING);
+        TOMCAT_LOGGER.setLevel(Level.WARNING);
+        Path baseDir = Files.createTempDirectory("bookstore-tomcat");
+        Files.createDirectories(baseDir.resolve("webapps"));
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(0);
+        tomcat.getConnector();
+        tomcat.getHost();
+        // Only the WAR's own web.xml; Tomcat's default adds JSP and static-file servlets
+        tomcat.setAddDefaultWebXmlToWebapp(false);
+        tomcat.start();
+        int port = tomcat.getConnector().getLocalPort();
+        try {
+            for (String mode : modes) {
+                // Read by AppConfig when the context starts; each context has its own class loader
+                System.setProperty("bookstore.async", mode.trim());
+                String path = "/bookstore-" + mode.trim();
+                Context context = tomcat.addWebapp(tomcat.getHost(), path, war.toString(), new ContextConfig());
+                System.out.printf("%s deployed with bookstore.async=%s%n", path, mode.trim());
+                shop(URI.create("http://localhost:" + port + path + "/api/"));
+                undeploy(tomcat, context);
+                checkThreads(path);
+            }
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+        System.out.printf("%ndeployment check: %s (%d failures)%n", failures == 0 ? "PASS" : "FAIL", failures);
+        return failures == 0;
+    }
+
+    // Signup to checkout: the cart and order POSTs are the @Suspended handlers
+    private void shop(URI api) throws IOException, InterruptedException {
+        String author = call("POST", api.resolve("authors"), "{\"firstName\":\"Deploy\",\"lastName\":\"Check\"}", 201);
+        String book = call("POST", api.resolve("books"), String.format(
+            "{\"title\":\"Deployed\",\"authorId\":%s,\"isbn\":\"973-0000000001\",\"publicationYear\":2000,\"price\":9.99,\"stock\":5}",
+            idOf(author)), 201);
+        String customer = call("POST", api.resolve("customers"),
+            "{\"firstName\":\"Deploy\",\"lastName\":\"Check\",\"email\":\"deploy@example.com\",\"password\":\"secret\"}", 201);
+        URI customerUri = api.resolve("customers/" + idOf(customer) + "/");
+        call("POST", customerUri.resolve("cart/items"), "{\"bookId\":" + idOf(book) + ",\"quantity\":2}", 200);
+        call("PUT", customerUri.resolve("cart/items/" + idOf(book)), "{\"quantity\":3}", 200);
+        call("POST", customerUri.resolve("orders"), null, 201);
+        call("GET", customerUri.resolve("orders"), null, 200);
+        call("GET", api.resolve("books/" + idOf(book)), null, 200);
+    }
+
+    private String call(String method, URI uri, String json, int expected) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri);
+        if (json != null) {
+            request.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        boolean ok = response.statusCode() == expected;
+        System.out.printf("  %-4s %-50s %d %s%n", method, uri.getPath(), response.statusCode(), ok ? "ok" : "expected " + expected);
+        if (!ok) {
+            failures++;
+        }
+        return response.body();
+    }
+
+    // Every thread the application starts is named bookstore-*
+    private void checkThreads(String path) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("bookstore-")) {
+                System.out.printf("  %s left thread %s running after undeploy%n", path, thread.getName());
+                failures++;
+            }
+        }
+    }
+
+    private static String idOf(String body) {
+        Matcher id = ID.matcher(body);
+        return id.find() ? id.group(1) : "0";
+    }
+
+    private static void undeploy(Tomcat tomcat, Context context) throws LifecycleException {
+        context.stop();
+        tomcat.getHost().removeChild(context);
+    }
+}
@@ -0,0 +1,110 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.encoding.CborProvider;
+import com.bookstore.models.Book;
+import com.bookstore.models.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// Serialization cost and size of one page of books or orders per response
+// format: JSON through JSON-B (what the JSON provider runs) or CBOR through
+// CborProvider, each optionally deflated at the level CompressionInterceptor
+// uses. The bytes on the wire for each combination are printed at setup.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class EncodingBenchmarks {
+    static final int PAGE = 100;
+    static final int COMPRESSION_LEVEL = 1;
+
+    @Param({"books", "orders"})
+    public String payload;
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    @Param({"identity", "deflate"})
+    public String coding;
+
+    private final Jsonb jsonb = JsonbBuilder.create();
+    private final CborProvider cbor = new CborProvider();
+    private final ByteArrayOutputStream wire = new ByteArrayOutputStream(64 * 1024);
+    private List<Object> page;
+
+    @Setup
+    public void build() throws IOException {
+        page = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            page.add(payload.equals("books") ? book(i) : order(i));
+        }
+        System.out.printf("%n%s as %s, %s: %d bytes on the wire%n", payload, format, coding, serialize());
+    }
+
+    private static Book book(int i) {
+        return new Book(1_000 + i, "The Collected Works, Volume " + i, 10 + i % 50,
+            String.format("978-%010d", i), 1950 + i % 70, 4.99 + i % 40, i * 7 % 500);
+    }
+
+    private static Order order(int i) {
+        Order order = new Order();
+        order.setId(5_000 + i);
+        order.setCustomerId(200 + i % 30);
+        Map<Integer, Integer> items = new TreeMap<>();
+        int lines = 1 + i % 4;
+        int[] cents = new int[lines];
+        for (int line = 0; line < lines; line++) {
+            items.put(1_000 + i * 3 + line, 1 + line);
+            cents[line] = 499 + 100 * ((i + line) % 40);
+        }
+        order.setItems(items);
+        order.setUnitPriceCents(cents);
+        order.setOrderDate(new Date(1_790_000_000_000L + i * 61_234L));
+        return order;
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        wire.reset();
+        if (coding.equals("identity")) {
+            write(wire);
+        } else {
+            // One deflater per response, as the interceptor allocates them
+            Deflater deflater = new Deflater(COMPRESSION_LEVEL, true);
+            try {
+                DeflaterOutputStream compressed = new DeflaterOutputStream(wire, deflater, 8192);
+                write(compressed);
+                compressed.finish();
+            } finally {
+                deflater.end();
+            }
+        }
+        return wire.size();
+    }
+
+    private void write(OutputStream out) throws IOException {
+        if (format.equals("json")) {
+            jsonb.toJson(page, out);
+        } else {
+            cbor.writeTo(page, List.class, List.class, null, CborProvider.APPLICATION_CBOR_TYPE, null, out);
+        }
+    }
+}
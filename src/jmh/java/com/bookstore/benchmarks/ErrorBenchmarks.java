@@ -0,0 +1,115 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.AppConfig;
+import com.bookstore.async.RequestExecutor;
+import com.bookstore.exceptions.BookNotFoundException;
+import com.bookstore.exceptions.BookstoreExceptionMapper;
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.resources.AuthorResource;
+import com.bookstore.resources.BookResource;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonWriter;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Error-response throughput. The dispatch benchmarks send requests that fail
+// (unknown ids, bad input) through full Jersey dispatch, next to a successful
+// read for scale. The mapper benchmarks isolate raising and mapping the error:
+// 'mapError' is the current path (stackless exception, ErrorCode body) and
+// 'mapErrorLegacy' rebuilds the old one, a stack-traced exception and a JSON-P
+// object serialized per response.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ErrorBenchmarks {
+    static final int BOOKS = 1_000;
+
+    // Keep a strong reference so the level set below is not garbage collected
+    private static final Logger APP_LOGGER = Logger.getLogger("com.bookstore");
+    private static final URI BASE = URI.create("http://localhost/api/");
+
+    ApplicationHandler handler;
+    int firstBookId;
+    final BookstoreExceptionMapper mapper = new BookstoreExceptionMapper();
+
+    @Setup
+    public void start() {
+        // Failed lookups log a warning each; keep them off the measurement
+        APP_LOGGER.setLevel(Level.SEVERE);
+        handler = new ApplicationHandler(new AppConfig(RequestExecutor.Mode.OFF));
+        Author author = new Author(null, "Error", "Bench", null);
+        new AuthorResource().createAuthor(author);
+        BookResource books = new BookResource();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book(null, "Error " + i, author.getId(), String.format("976-%010d", i),
+                2000, 9.99, CatalogState.STOCK_PER_BOOK);
+            books.createBook(book);
+            if (i == 0) firstBookId = book.getId();
+        }
+    }
+
+    private int call(String path) throws Exception {
+        ContainerRequest request = new ContainerRequest(BASE, BASE.resolve(path), "GET", null,
+            new MapPropertiesDelegate(), null);
+        return handler.apply(request, new ByteArrayOutputStream()).get().getStatus();
+    }
+
+    @Benchmark
+    public int bookFound() throws Exception {
+        return call("books/" + (firstBookId + ThreadLocalRandom.current().nextInt(BOOKS)));
+    }
+
+    @Benchmark
+    public int bookNotFound() throws Exception {
+        return call("books/" + (firstBookId + BOOKS + ThreadLocalRandom.current().nextInt(1_000_000)));
+    }
+
+    @Benchmark
+    public int invalidInput() throws Exception {
+        return call("books/search?q=x&limit=-1");
+    }
+
+    @Benchmark
+    public byte[] mapError() {
+        try {
+            throw new BookNotFoundException("Book with ID " + ThreadLocalRandom.current().nextInt() + " not found");
+        } catch (BookNotFoundException e) {
+            return (byte[]) mapper.toResponse(e).getEntity();
+        }
+    }
+
+    @Benchmark
+    public byte[] mapErrorLegacy() {
+        try {
+            throw new RuntimeException("Book with ID " + ThreadLocalRandom.current().nextInt() + " not found");
+        } catch (RuntimeException e) {
+            JsonObject error = Json.createObjectBuilder()
+                .add("error", "Book Not Found")
+                .add("message", e.getMessage())
+                .build();
+            Response response = Response.status(Response.Status.NOT_FOUND).entity(error).type("application/json").build();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (JsonWriter writer = Json.createWriter(body)) {
+                writer.writeObject((JsonObject) response.getEntity());
+            }
+            return body.toByteArray();
+        }
+    }
+}
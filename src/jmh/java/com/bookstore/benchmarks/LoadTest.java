@@ -0,0 +1,331 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.AppConfig;
+import com.bookstore.analytics.SalesAnalytics;
+import com.bookstore.async.RequestExecutor;
+import com.bookstore.limits.AdaptiveLimit;
+import com.bookstore.limits.ConcurrencyLimitFilter;
+import com.bookstore.metrics.LatencyHistogram;
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.models.Customer;
+import com.bookstore.resources.AuthorResource;
+import com.bookstore.resources.BookResource;
+import com.bookstore.resources.CustomerResource;
+import com.bookstore.resources.OrderResource;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// End-to-end load test: AppConfig behind an embedded Grizzly server on localhost,
+// driven over real sockets by java.net.http clients. Seeds its own catalog, runs
+// a browse / add-to-cart / checkout mix, then reports throughput, latency
+// percentiles and whether every unit of stock is accounted for.
+//   mvn -Pjmh test-compile exec:exec -Djmh.main=com.bookstore.benchmarks.LoadTest \
+//       -Djmh.args="--mode=open --rate=5000"
+// Options, as --name=value:
+//   --mode=closed       closed: each client sends its next request when the previous
+//                       one returns. open: requests start on a fixed schedule at
+//                       --rate whether or not earlier ones finished, and latency
+//                       counts from the scheduled start, so queueing is not hidden
+//   --clients=64        concurrent clients (closed) or outstanding requests (open)
+//   --rate=2000         requests per second (open)
+//   --mix=70,20,10      browse, add-to-cart, checkout percentages
+//   --warmup=5 --duration=30                  seconds
+//   --books=10000 --authors=100 --customers=1000 --stock=100000
+//   --serverThreads=64  embedded server worker threads
+//   --async=off         request execution mode (see RequestExecutor)
+//   --limits=off        on sheds load with adaptive concurrency limits (see ConcurrencyLimitFilter)
+// Exits with status 1 when the stock check fails.
+public class LoadTest {
+    // Keep strong references so the levels set below are not garbage collected
+    private static final Logger APP_LOGGER = Logger.getLogger("com.bookstore");
+    private static final Logger SERVER_LOGGER = Logger.getLogger("org.glassfish");
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 1.0};
+
+    enum Op { BROWSE, ADD_TO_CART, CHECKOUT }
+
+    private final Map<String, String> options;
+    private final int clients;
+    private final int books;
+    private final int customers;
+    private final int stock;
+    private final int[] mix = new int[3];
+
+    private int firstBookId;
+    private int firstCustomerId;
+    private HttpClient http;
+    private URI base;
+
+    private volatile boolean recording;
+    private volatile boolean stopping;
+    private final LatencyHistogram[] latency = new LatencyHistogram[Op.values().length];
+    private final LongAdder[] ok = new LongAdder[Op.values().length];
+    private final LongAdder[] rejected = new LongAdder[Op.values().length]; // 4xx, e.g. out of stock
+    private final LongAdder[] failed = new LongAdder[Op.values().length];   // 5xx and I/O errors
+    private final LongAdder dropped = new LongAdder(); // open loop: no free client when due
+
+    LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.clients = intOption("clients", 64);
+        this.books = intOption("books", 10_000);
+        this.customers = intOption("customers", 1_000);
+        this.stock = intOption("stock", 100_000);
+        String[] shares = options.getOrDefault("mix", "70,20,10").split(",");
+        for (int i = 0; i < mix.length; i++) {
+            mix[i] = (i == 0 ? 0 : mix[i - 1]) + Integer.parseInt(shares[i].trim());
+        }
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new LatencyHistogram();
+            ok[i] = new LongAdder();
+            rejected[i] = new LongAdder();
+            failed[i] = new LongAdder();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        boolean consistent = new LoadTest(options).run();
+        System.exit(consistent ? 0 : 1);
+    }
+
+    boolean run() throws Exception {
+        // Rejections (empty cart, out of stock) are logged as warnings
+        APP_LOGGER.setLevel(Level.SEVERE);
+        SERVER_LOGGER.setLevel(Level.SEVERE);
+        RequestExecutor.Mode async = RequestExecutor.Mode.valueOf(
+            options.getOrDefault("async", "off").toUpperCase(Locale.ROOT));
+        System.setProperty("bookstore.limits", options.getOrDefault("limits", "off"));
+        HttpServer server = GrizzlyHttpServerFactory.createHttpServer(
+            URI.create("http://localhost:0/api"), new AppConfig(async), false);
+        NetworkListener listener = server.getListeners().iterator().next();
+        int serverThreads = intOption("serverThreads", 64);
+        listener.getTransport().setWorkerThreadPoolConfig(ThreadPoolConfig.defaultConfig()
+            .setCorePoolSize(serverThreads).setMaxPoolSize(serverThreads));
+        server.start();
+        base = URI.create("http://localhost:" + listener.getPort() + "/api/");
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5)).build();
+        try {
+            seed();
+            boolean open = "open".equals(options.getOrDefault("mode", "closed"));
+            long warmup = TimeUnit.SECONDS.toNanos(intOption("warmup", 5));
+            long duration = TimeUnit.SECONDS.toNanos(intOption("duration", 30));
+            System.out.printf("%s loop, %d clients%s, mix %s, async=%s, limits=%s, %d books, %d customers%n",
+                open ? "open" : "closed", clients, open ? ", " + intOption("rate", 2000) + " req/s" : "",
+                options.getOrDefault("mix", "70,20,10"), RequestExecutor.mode(),
+                options.getOrDefault("limits", "off"), books, customers);
+
+            Thread driver = new Thread(open ? this::openLoop : this::closedLoop, "load-driver");
+            driver.start();
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(warmup));
+            recording = true;
+            long started = System.nanoTime();
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(duration));
+            recording = false;
+            long elapsed = System.nanoTime() - started;
+            stopping = true;
+            driver.join();
+
+            report(elapsed);
+            return checkStock();
+        } finally {
+            server.shutdownNow();
+            RequestExecutor.configure(RequestExecutor.Mode.OFF);
+        }
+    }
+
+    // Through the resources themselves, so every index is built as in production
+    private void seed() {
+        int authors = intOption("authors", 100);
+        int firstAuthorId = 0;
+        for (int i = 0; i < authors; i++) {
+            Author author = new Author(null, "Load" + i, "Author", null);
+            new AuthorResource().createAuthor(author);
+            if (i == 0) firstAuthorId = author.getId();
+        }
+        BookResource bookResource = new BookResource();
+        for (int i = 0; i < books; i++) {
+            Book book = new Book(null, "Load " + i, firstAuthorId + i % authors,
+                String.format("977-%010d", i), 2000, 9.99, stock);
+            bookResource.createBook(book);
+            if (i == 0) firstBookId = book.getId();
+        }
+        CustomerResource customerResource = new CustomerResource();
+        for (int i = 0; i < customers; i++) {
+            Customer customer = new Customer(null, "Load", "Customer" + i, "load" + i + "@example.com", "secret");
+            customerResource.createCustomer(customer);
+            if (i == 0) firstCustomerId = customer.getId();
+        }
+    }
+
+    private void closedLoop() {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            int customerId = firstCustomerId + c % customers;
+            pool.execute(() -> {
+                while (!stopping) {
+                    Op op = pick();
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = http.send(request(op, customerId), HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    record(op, start, status);
+                }
+            });
+        }
+        pool.shutdown();
+        awaitQuietly(pool);
+    }
+
+    private void openLoop() {
+        long interval = TimeUnit.SECONDS.toNanos(1) / intOption("rate", 2000);
+        Semaphore outstanding = new Semaphore(clients);
+        long next = System.nanoTime();
+        while (!stopping) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            long scheduled = next;
+            next += interval;
+            if (!outstanding.tryAcquire()) {
+                if (recording) dropped.increment();
+                continue;
+            }
+            Op op = pick();
+            int customerId = firstCustomerId + ThreadLocalRandom.current().nextInt(customers);
+            CompletableFuture<HttpResponse<Void>> response =
+                http.sendAsync(request(op, customerId), HttpResponse.BodyHandlers.discarding());
+            response.whenComplete((result, error) -> {
+                record(op, scheduled, error == null ? result.statusCode() : -1);
+                outstanding.release();
+            });
+        }
+        outstanding.acquireUninterruptibly(clients);
+    }
+
+    private Op pick() {
+        int roll = ThreadLocalRandom.current().nextInt(mix[2]);
+        return roll < mix[0] ? Op.BROWSE : roll < mix[1] ? Op.ADD_TO_CART : Op.CHECKOUT;
+    }
+
+    private HttpRequest request(Op op, int customerId) {
+        int bookId = firstBookId + ThreadLocalRandom.current().nextInt(books);
+        switch (op) {
+            case BROWSE:
+                return HttpRequest.newBuilder(base.resolve("books/" + bookId)).GET().build();
+            case ADD_TO_CART:
+                return HttpRequest.newBuilder(base.resolve("customers/" + customerId + "/cart/items"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"bookId\":" + bookId + ",\"quantity\":1}"))
+                    .build();
+            default:
+                return HttpRequest.newBuilder(base.resolve("customers/" + customerId + "/orders"))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+    }
+
+    private void record(Op op, long start, int status) {
+        if (!recording) return;
+        int i = op.ordinal();
+        latency[i].record(System.nanoTime() - start);
+        if (status >= 200 && status < 300) ok[i].increment();
+        else if (status >= 400 && status < 500) rejected[i].increment();
+        else failed[i].increment();
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%n%-12s %9s %9s %9s %7s %10s %9s %9s %9s %9s %9s%n", "op", "requests", "ok",
+            "rejected", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        for (Op op : Op.values()) {
+            int i = op.ordinal();
+            LatencyHistogram.Snapshot snapshot = latency[i].snapshot();
+            total += snapshot.count();
+            System.out.printf("%-12s %9d %9d %9d %7d %10.1f", op.name().toLowerCase(Locale.ROOT), snapshot.count(),
+                ok[i].sum(), rejected[i].sum(), failed[i].sum(), snapshot.count() / seconds);
+            for (double quantile : QUANTILES) {
+                System.out.printf(" %9.2f", snapshot.valueAtQuantile(quantile) / 1e6);
+            }
+            System.out.println();
+        }
+        System.out.printf("%-12s %9d %51s%n", "total", total, String.format("%.1f req/s", total / seconds));
+        if (ConcurrencyLimitFilter.enabled()) {
+            for (AdaptiveLimit limit : ConcurrencyLimitFilter.limits()) {
+                System.out.printf("limit %-9s %4d, %d shed%n", limit.name(), limit.limit(), limit.rejected());
+            }
+        }
+        if (dropped.sum() > 0) {
+            System.out.printf("dropped %d scheduled requests: all %d clients busy%n", dropped.sum(), clients);
+        }
+    }
+
+    // Every unit of seeded stock must be on the shelf, in a cart or sold
+    private boolean checkStock() {
+        long[] inCarts = new long[books];
+        for (int c = 0; c < customers; c++) {
+            CustomerResource.customers.get(firstCustomerId + c).getCart().forEachItem((bookId, quantity) -> {
+                if (bookId >= firstBookId && bookId < firstBookId + books) inCarts[bookId - firstBookId] += quantity;
+            });
+        }
+        int mismatches = 0;
+        for (int i = 0; i < books; i++) {
+            Book book = BookResource.books.get(firstBookId + i);
+            SalesAnalytics.Totals sales = SalesAnalytics.book(firstBookId + i);
+            long sold = sales == null ? 0 : sales.units();
+            if (book.getStock() < 0 || book.getStock() + inCarts[i] + sold != stock) {
+                if (mismatches++ < 10) {
+                    System.out.printf("book %d: %d on shelf + %d in carts + %d sold != %d seeded%n",
+                        book.getId(), book.getStock(), inCarts[i], sold, stock);
+                }
+            }
+        }
+        System.out.printf("%nstock check: %s (%d books, %d mismatched), %d orders placed%n",
+            mismatches == 0 ? "PASS" : "FAIL", books, mismatches, OrderResource.allOrders().size());
+        return mismatches == 0;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static void awaitQuietly(ExecutorService pool) {
+        try {
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.resources.AuthorResource;
+import com.bookstore.resources.BookResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import javax.ws.rs.core.Response;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+// Cost of request logging on the request thread, with the application logger at
+// INFO (as deployed) and at WARNING (as in the other benchmarks). 'legacyInfo' is
+// the old call: eager string concatenation and a synchronous java.util.logging
+// call. 'structuredInfo' is the StructuredLogger call that replaced it, and
+// 'getBookById' is a whole request, which logs one INFO line.
+// Records go to a temporary file through a handler that flushes every record,
+// like the default ConsoleHandler. Under the default drop policy, events beyond
+// what the writer thread keeps up with are dropped rather than queued; add
+// -jvmArgsAppend -Dbookstore.log.overflow=block to measure the blocking policy.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class LoggingBenchmarks {
+    static final int BOOKS = 1_000;
+
+    // Keep strong references so the levels set below are not garbage collected
+    private static final Logger APP_LOGGER = Logger.getLogger("com.bookstore");
+    private static final Logger LEGACY = Logger.getLogger("com.bookstore.benchmarks.LegacyLogging");
+    private static final StructuredLogger STRUCTURED = StructuredLogger.getLogger(LoggingBenchmarks.class);
+
+    @Param({"INFO", "WARNING"})
+    public String level;
+
+    Path logFile;
+    StreamHandler handler;
+    int firstBookId;
+    final BookResource bookResource = new BookResource();
+
+    @Setup
+    public void start() throws IOException {
+        APP_LOGGER.setLevel(Level.WARNING);
+        Author author = new Author(null, "Logging", "Bench", null);
+        new AuthorResource().createAuthor(author);
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book(null, "Title " + i, author.getId(),
+                String.format("978-%010d", i), 2000, 9.99, 100);
+            bookResource.createBook(book);
+            if (i == 0) firstBookId = book.getId();
+        }
+
+        logFile = Files.createTempFile("bookstore-log", ".log");
+        handler = new StreamHandler(new BufferedOutputStream(Files.newOutputStream(logFile)), new SimpleFormatter()) {
+            @Override
+            public synchronized void publish(LogRecord record) {
+                super.publish(record);
+                flush();
+            }
+        };
+        APP_LOGGER.setUseParentHandlers(false);
+        APP_LOGGER.addHandler(handler);
+        APP_LOGGER.setLevel(Level.parse(level));
+    }
+
+    @TearDown
+    public void stop() throws IOException {
+        StructuredLogger.shutdown();
+        APP_LOGGER.removeHandler(handler);
+        handler.close();
+        Files.deleteIfExists(logFile);
+    }
+
+    private int randomBookId() {
+        return firstBookId + ThreadLocalRandom.current().nextInt(BOOKS);
+    }
+
+    @Benchmark
+    public void legacyInfo() {
+        LEGACY.info("[SERVER] [GET /books/" + randomBookId() + "] Fetching book");
+    }
+
+    @Benchmark
+    public void structuredInfo() {
+        STRUCTURED.info("[GET /books/{id}] Fetching book", "id", randomBookId());
+    }
+
+    @Benchmark
+    public Response getBookById() {
+        return bookResource.getBookById(randomBookId());
+    }
+}
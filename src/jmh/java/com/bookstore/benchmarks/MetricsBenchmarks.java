@@ -0,0 +1,31 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.metrics.LatencyHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cost of recording one request latency into a shared histogram; every thread
+// records into the same instance, as concurrent requests to one endpoint do.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MetricsBenchmarks {
+    final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Benchmark
+    public void record() {
+        // 1us..1ms, the range of typical in-memory request latencies
+        histogram.record(ThreadLocalRandom.current().nextLong(1_000, 1_000_000));
+    }
+
+    @Benchmark
+    public long snapshotP99() {
+        return histogram.snapshot().valueAtQuantile(0.99);
+    }
+}
@@ -0,0 +1,135 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.persistence.Store;
+import com.bookstore.resources.AuthorResource;
+import com.bookstore.resources.BookResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Journal write throughput per fsync policy, what one acknowledged write costs a
+// request, and recovery time from a journal-only or snapshot-plus-journal data
+// directory.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PersistenceBenchmarks {
+    static final int BATCH = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class Journaling {
+        @Param({"always", "interval", "never"})
+        public String fsync;
+
+        Path directory;
+        final Book book = new Book(1, "Journal benchmark", 1, "978-0000000001", 2000, 9.99, 100);
+
+        @Setup
+        public void open() throws IOException {
+            directory = Files.createTempDirectory("bookstore-journal");
+            System.setProperty("bookstore.data.dir", directory.toString());
+            System.setProperty("bookstore.journal.fsync", fsync);
+            System.setProperty("bookstore.snapshot.intervalSec", "0");
+            Store.start();
+        }
+
+        @TearDown
+        public void close() throws IOException {
+            Store.stop();
+            deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recovery {
+        @Param({"100000", "1000000"})
+        public int bookCount;
+
+        @Param({"journal", "snapshot"})
+        public String source;
+
+        Path directory;
+
+        @Setup
+        public void seed() throws IOException {
+            java.util.logging.Logger.getLogger("com.bookstore").setLevel(java.util.logging.Level.WARNING);
+            directory = Files.createTempDirectory("bookstore-recovery");
+            System.setProperty("bookstore.data.dir", directory.toString());
+            System.setProperty("bookstore.snapshot.intervalSec", "0");
+            Store.start();
+            Author author = new Author(null, "Recovery", "Author", null);
+            new AuthorResource().createAuthor(author);
+            BookResource books = new BookResource();
+            for (int i = 0; i < bookCount; i++) {
+                books.createBook(new Book(null, "Title " + i, author.getId(),
+                    String.format("978-%010d", i), 2000, 9.99, 100));
+            }
+            if (source.equals("snapshot")) {
+                Store.snapshot();
+            }
+            Store.stop();
+        }
+
+        @Setup(Level.Invocation)
+        public void forget() {
+            BookResource.books.clear();
+            BookResource.booksByAuthor.clear();
+            AuthorResource.authors.clear();
+        }
+
+        @TearDown
+        public void delete() throws IOException {
+            deleteRecursively(directory);
+        }
+    }
+
+    // Records made durable per second: append a batch, then wait for the writer
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void journalWrite(Journaling state) throws IOException {
+        for (int i = 0; i < BATCH; i++) {
+            Store.bookSaved(state.book);
+        }
+        Store.flush();
+    }
+
+    // One write the way a resource acknowledges it: append, then Store.awaitDurable.
+    // Under 'always' concurrent requests share each fsync; compare -t 1 with -t 16
+    @Benchmark
+    public void acknowledgedWrite(Journaling state) {
+        Store.bookSaved(state.book);
+        Store.awaitDurable();
+    }
+
+    // Restarts are single-threaded; run with -t 1
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int recover(Recovery state) {
+        Store.start();
+        Store.stop();
+        return BookResource.books.size();
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.models.Customer;
+import com.bookstore.resources.CartResource;
+import com.bookstore.resources.OrderResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Calls the resource methods directly (no HTTP, no JSON) to isolate the
+// cost of lookups, indexes and stock handling on a seeded catalog.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResourceBenchmarks {
+
+    // Each benchmark thread shops as its own customer so carts are not shared
+    @State(Scope.Thread)
+    public static class Shopper {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+
+        final CartResource cartResource = new CartResource();
+        final OrderResource orderResource = new OrderResource();
+        final CartResource.CartItemRequest item = new CartResource.CartItemRequest();
+        int customerId;
+
+        @Setup
+        public void pickCustomer(CatalogState catalog) {
+            customerId = catalog.firstCustomerId + NEXT.getAndIncrement() % CatalogState.CUSTOMERS;
+            item.setQuantity(1);
+        }
+    }
+
+    // Random catalog ISBNs formatted up front so the benchmark measures the lookup
+    @State(Scope.Thread)
+    public static class Isbns {
+        final String[] pool = new String[4096];
+        int next;
+
+        @Setup
+        public void format(CatalogState catalog) {
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = String.format("978-%010d", ThreadLocalRandom.current().nextInt(catalog.bookCount));
+            }
+        }
+
+        String next() {
+            return pool[next++ & (pool.length - 1)];
+        }
+    }
+
+    // Random customer emails in mixed case, formatted up front so the benchmark measures the lookup
+    @State(Scope.Thread)
+    public static class Emails {
+        final String[] pool = new String[4096];
+        int next;
+
+        @Setup
+        public void format() {
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = "Customer" + ThreadLocalRandom.current().nextInt(CatalogState.CUSTOMERS) + "@Example.com";
+            }
+        }
+
+        String next() {
+            return pool[next++ & (pool.length - 1)];
+        }
+    }
+
+    // Signups need distinct emails; the counter spans threads and iterations
+    private static final AtomicLong SIGNUPS = new AtomicLong();
+
+    private static int randomBookId(CatalogState catalog) {
+        return catalog.firstBookId + ThreadLocalRandom.current().nextInt(catalog.bookCount);
+    }
+
+    private static int randomAuthorId(CatalogState catalog) {
+        return catalog.firstAuthorId + ThreadLocalRandom.current().nextInt(catalog.authorCount);
+    }
+
+    @Benchmark
+    public Response getBookById(CatalogState catalog) {
+        return catalog.bookResource.getBookById(randomBookId(catalog));
+    }
+
+    @Benchmark
+    public Response getBookByIsbn(CatalogState catalog, Isbns isbns) {
+        return catalog.bookResource.getBookByIsbn(isbns.next());
+    }
+
+    @Benchmark
+    public Response getAllBooks(CatalogState catalog) {
+        return catalog.bookResource.getAllBooks(null, null, null);
+    }
+
+    @Benchmark
+    public Response getBooksByAuthor(CatalogState catalog) {
+        return catalog.authorResource.getBooksByAuthor(randomAuthorId(catalog));
+    }
+
+    @Benchmark
+    public Response getCustomerByEmail(CatalogState catalog, Emails emails) {
+        return catalog.customerResource.getCustomerByEmail(emails.next());
+    }
+
+    @Benchmark
+    public Response createCustomer(CatalogState catalog) {
+        Customer customer = new Customer(null, "Bench", "Mark", "bench" + SIGNUPS.incrementAndGet() + "@example.com", "secret");
+        return catalog.customerResource.createCustomer(customer);
+    }
+
+    @Benchmark
+    public Response addToCart(CatalogState catalog, Shopper shopper) {
+        shopper.item.setBookId(randomBookId(catalog));
+        Response response = shopper.cartResource.addToCart(shopper.customerId, shopper.item);
+        // Keep the cart small; the removal is part of the measured cost
+        shopper.cartResource.removeCartItem(shopper.customerId, shopper.item.getBookId());
+        return response;
+    }
+
+    @Benchmark
+    public Response createOrder(CatalogState catalog, Shopper shopper) {
+        shopper.item.setBookId(randomBookId(catalog));
+        shopper.cartResource.addToCart(shopper.customerId, shopper.item);
+        return shopper.orderResource.createOrder(shopper.customerId);
+    }
+}
@@ -0,0 +1,83 @@
+package com.bookstore.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Time to first request: launches a server command, polls a URL until it
+// answers 200, and reports the time since launch. Any deployment can be
+// measured, e.g. the standalone jar against a WAR in a servlet container.
+//   mvn -Pjmh test-compile exec:exec -Djmh.main=com.bookstore.benchmarks.StartupTime \
+//       -Djmh.args="--runs=5 --url=http://localhost:8080/api/books -- java -jar target/BookstoreAPI.jar"
+// Everything after '--' is the command; its output goes to startup.log.
+public class StartupTime {
+    private static final long POLL_MILLIS = 5;
+    private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        String url = "http://localhost:8080/api/books";
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1) {
+            throw new IllegalArgumentException("Expected [--runs=N] [--url=URL] -- command...");
+        }
+        for (String arg : Arrays.asList(args).subList(0, separator)) {
+            if (arg.startsWith("--runs=")) runs = Integer.parseInt(arg.substring("--runs=".length()));
+            else if (arg.startsWith("--url=")) url = arg.substring("--url=".length());
+            else throw new IllegalArgumentException("Unknown option " + arg);
+        }
+        List<String> command = Arrays.asList(args).subList(separator + 1, args.length);
+
+        long[] millis = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            millis[run] = timeToFirstRequest(command, new URL(url));
+            System.out.printf("run %d: %d ms%n", run + 1, millis[run]);
+        }
+        Arrays.sort(millis);
+        System.out.printf("%s%n  min %d ms, median %d ms, max %d ms over %d runs%n",
+            String.join(" ", command), millis[0], millis[runs / 2], millis[runs - 1], runs);
+    }
+
+    private static long timeToFirstRequest(List<String> command, URL url) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process server = new ProcessBuilder(command).redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("startup.log"))).start();
+        try {
+            while (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < TIMEOUT_MILLIS) {
+                if (!server.isAlive()) {
+                    throw new IllegalStateException("Server exited with status " + server.exitValue() + ", see startup.log");
+                }
+                if (answers(url)) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+            throw new IllegalStateException("No answer from " + url + " within " + TIMEOUT_MILLIS + " ms");
+        } finally {
+            server.descendants().forEach(ProcessHandle::destroy);
+            server.destroy();
+            if (!server.waitFor(30, TimeUnit.SECONDS)) {
+                server.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static boolean answers(URL url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(100);
+            int status = connection.getResponseCode();
+            try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (body != null) body.readAllBytes();
+            }
+            return status == 200;
+        } catch (IOException notYet) {
+            return false;
+        }
+    }
+}
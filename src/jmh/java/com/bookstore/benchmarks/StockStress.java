@@ -0,0 +1,138 @@
+package com.bookstore.benchmarks;
+
+import com.bookstore.exceptions.BookstoreException;
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.models.Customer;
+import com.bookstore.resources.AuthorResource;
+import com.bookstore.resources.BookResource;
+import com.bookstore.resources.CartResource;
+import com.bookstore.resources.CustomerResource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Oversell stress test: many shoppers add, resize and remove one book in their
+// carts at once, through CartResource and so through Inventory, with the
+// shelf kept near empty. A watcher samples the stock while they run; at the end
+// every unit must be on the shelf or reserved in a cart.
+//   mvn -Pjmh test-compile exec:exec -Djmh.main=com.bookstore.benchmarks.StockStress \
+//       -Djmh.args="--threads=16 --duration=10"
+// Options, as --name=value:
+//   --threads=16        concurrent shoppers, one customer each
+//   --stock=32          initial stock; below threads * 5 so most updates contend for the last units
+//   --duration=10       seconds
+// Exits with status 1 when stock went negative or units were lost or created.
+public class StockStress {
+    // Keep a strong reference so the level set below is not garbage collected
+    private static final Logger APP_LOGGER = Logger.getLogger("com.bookstore");
+    private static final int MAX_QUANTITY = 5;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int stock = Integer.parseInt(options.getOrDefault("stock", "32"));
+        long duration = TimeUnit.SECONDS.toNanos(Integer.parseInt(options.getOrDefault("duration", "10")));
+
+        // Out-of-stock rejections are logged as warnings
+        APP_LOGGER.setLevel(Level.SEVERE);
+        Author author = new Author(null, "Stock", "Stress", null);
+        new AuthorResource().createAuthor(author);
+        Book book = new Book(null, "Contended", author.getId(), "979-0000000001", 2000, 9.99, stock);
+        new BookResource().createBook(book);
+        int[] customerIds = new int[threads];
+        for (int i = 0; i < threads; i++) {
+            Customer customer = new Customer(null, "Shopper", "" + i, "shopper" + i + "@example.com", "secret");
+            new CustomerResource().createCustomer(customer);
+            customerIds[i] = customer.getId();
+        }
+
+        LongAdder reserved = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder other = new LongAdder();
+        int[] lowest = {stock};
+        long deadline = System.nanoTime() + duration;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] shoppers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int customerId = customerIds[t];
+            shoppers[t] = new Thread(() -> {
+                CartResource carts = new CartResource();
+                CartResource.CartItemRequest add = new CartResource.CartItemRequest();
+                add.setBookId(book.getId());
+                CartResource.QuantityUpdateRequest update = new CartResource.QuantityUpdateRequest();
+                awaitQuietly(start);
+                while (System.nanoTime() < deadline) {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try {
+                        int op = random.nextInt(3);
+                        if (op == 0) {
+                            add.setQuantity(1 + random.nextInt(MAX_QUANTITY));
+                            carts.addToCart(customerId, add);
+                            reserved.increment();
+                        } else if (op == 1) {
+                            update.setQuantity(1 + random.nextInt(MAX_QUANTITY));
+                            carts.updateCartItem(customerId, book.getId(), update);
+                            reserved.increment();
+                        } else {
+                            carts.removeCartItem(customerId, book.getId());
+                        }
+                    } catch (BookstoreException e) {
+                        // Out of stock, or nothing to update or remove yet
+                        if (e.getMessage().startsWith("Insufficient stock")) rejected.increment();
+                        else other.increment();
+                    }
+                }
+            }, "shopper-" + t);
+            shoppers[t].start();
+        }
+        Thread watcher = new Thread(() -> {
+            awaitQuietly(start);
+            while (System.nanoTime() < deadline) {
+                int current = book.getStock();
+                if (current < lowest[0]) lowest[0] = current;
+            }
+        }, "stock-watcher");
+        watcher.start();
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread shopper : shoppers) shopper.join();
+        watcher.join();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long inCarts = 0;
+        for (int customerId : customerIds) {
+            inCarts += CustomerResource.customers.get(customerId).getCart().quantityOf(book.getId());
+        }
+        int remaining = book.getStock();
+        boolean consistent = lowest[0] >= 0 && remaining >= 0 && remaining + inCarts == stock;
+
+        System.out.printf("%d shoppers on one book for %.1f s: %d reservations, %d rejected out of stock, %d other rejections (%.0f ops/s)%n",
+            threads, seconds, reserved.sum(), rejected.sum(), other.sum(),
+            (reserved.sum() + rejected.sum() + other.sum()) / seconds);
+        System.out.printf("lowest stock seen %d; %d on shelf + %d in carts = %d of %d seeded%n",
+            lowest[0], remaining, inCarts, remaining + inCarts, stock);
+        System.out.printf("stock check: %s%n", consistent ? "PASS" : "FAIL");
+        System.exit(consistent ? 0 : 1);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,28 +1,85 @@
 package com.bookstore;
 
+import com.bookstore.async.RequestExecutor;
+import com.bookstore.encoding.CborProvider;
+import com.bookstore.encoding.CompressionInterceptor;
 import com.bookstore.exceptions.*;
+import com.bookstore.limits.ConcurrencyLimitFilter;
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.metrics.MetricsFilter;
+import com.bookstore.persistence.Store;
 import com.bookstore.resources.*;
+import org.glassfish.jersey.jsonb.JsonBindingFeature;
 import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.ServerProperties;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
 import javax.ws.rs.ApplicationPath;
 
 @ApplicationPath("/api") // Base URI for all resources
 public class AppConfig extends ResourceConfig {
     public AppConfig() {
+        this(RequestExecutor.configuredMode());
+    }
+
+    // 'async' selects where the @Suspended cart and order handlers run
+    public AppConfig(RequestExecutor.Mode async) {
+        // Recover state from the journal before serving requests (no-op unless configured)
+        Store.start();
+        RequestExecutor.configure(async);
+
+        // Everything is registered below; skipping discovery and WADL shortens startup
+        property(ServerProperties.FEATURE_AUTO_DISCOVERY_DISABLE, true);
+        property(ServerProperties.WADL_FEATURE_DISABLE, true);
+        register(JsonBindingFeature.class);
+
         // Register resource classes
         register(BookResource.class);
         register(AuthorResource.class);
         register(CustomerResource.class);
         register(CartResource.class);
         register(OrderResource.class);
+        register(AnalyticsResource.class);
+        register(MetricsResource.class);
+
+        // application/cbor next to JSON, and gzip/deflate for larger bodies
+        register(CborProvider.class);
+        if (CompressionInterceptor.enabled()) {
+            register(CompressionInterceptor.class);
+        }
+
+        // One exception mapper for every domain error (see ErrorCode)
+        register(BookstoreExceptionMapper.class);
+
+        // Per-endpoint latency, status and in-flight metrics for GET /metrics
+        register(MetricsFilter.class);
+
+        // Adaptive concurrency limits with fast 503s (off unless -Dbookstore.limits=on)
+        if (ConcurrencyLimitFilter.enabled()) {
+            register(ConcurrencyLimitFilter.class);
+        }
+
+        // Stop background threads when the container shuts the application down
+        register(new Shutdown());
+    }
+
+    // Runs on WAR undeploy and on embedded server shutdown, before the JVM exits
+    private static final class Shutdown implements ContainerLifecycleListener {
+        @Override
+        public void onStartup(Container container) {}
+
+        @Override
+        public void onReload(Container container) {}
 
-        // Register exception mappers
-        register(BookExceptionMapper.class);
-        register(AuthorExceptionMapper.class);
-        register(CustomerExceptionMapper.class);
-        register(OutOfStockExceptionMapper.class);
-        register(CartExceptionMapper.class);
-        register(OrderExceptionMapper.class);
-        register(InvalidInputExceptionMapper.class);
+        @Override
+        public void onShutdown(Container container) {
+            // Drains the request pool, if any, before the threads that journal changes
+            // stop; the log writer goes last to flush what they log
+            RequestExecutor.configure(RequestExecutor.Mode.OFF);
+            CartExpiry.stop();
+            Store.stop();
+            StructuredLogger.shutdown();
+        }
     }
 }
 
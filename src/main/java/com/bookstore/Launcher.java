@@ -0,0 +1,91 @@
+package com.bookstore;
+
+import com.bookstore.logging.StructuredLogger;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+// Standalone entry point: AppConfig on an embedded Grizzly server, no servlet
+// container. Build with 'mvn -Pstandalone package', run with
+// 'java -jar target/BookstoreAPI.jar'. Serves the same /api paths as the WAR.
+//   -Dbookstore.server.host=0.0.0.0
+//   -Dbookstore.server.port=8080
+//   -Dbookstore.server.workers=0            request threads; 0 keeps Grizzly's default
+//   -Dbookstore.server.selectors=0          NIO selector threads; 0 = one per core
+//   -Dbookstore.server.backlog=4096         listen backlog (capped by net.core.somaxconn)
+//   -Dbookstore.server.keepAliveSec=30      idle keep-alive timeout; -1 never times out
+//   -Dbookstore.server.keepAliveRequests=256  requests per connection; 0 disables keep-alive, -1 unlimited
+//   -Dbookstore.server.training=false       start, request each read endpoint once, exit
+// The training run exists for class-data sharing: run it once with
+// -XX:ArchiveClassesAtExit=bookstore.jsa, then start with -XX:SharedArchiveFile=bookstore.jsa.
+public final class Launcher {
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(Launcher.class);
+    private static final String[] TRAINING_PATHS = {
+        "books", "books/1", "authors", "customers", "analytics/books/top", "metrics"
+    };
+
+    private Launcher() {}
+
+    public static void main(String[] args) throws Exception {
+        String host = System.getProperty("bookstore.server.host", "0.0.0.0");
+        int port = Integer.getInteger("bookstore.server.port", 8080);
+        URI base = URI.create("http://" + host + ":" + port + "/api/");
+
+        HttpServer server = GrizzlyHttpServerFactory.createHttpServer(base, new AppConfig(), false);
+        NetworkListener listener = server.getListener("grizzly");
+        configure(listener);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.shutdown(5, TimeUnit.SECONDS),
+            "bookstore-server-stop"));
+
+        long startupMillis = ProcessHandle.current().info().startInstant()
+            .map(start -> Duration.between(start, Instant.now()).toMillis())
+            .orElse(-1L);
+        LOGGER.info("Listening", "uri", base, "startupMs", startupMillis);
+
+        if (Boolean.getBoolean("bookstore.server.training")) {
+            train(URI.create("http://localhost:" + listener.getPort() + "/api/"));
+            System.exit(0);
+        }
+        Thread.currentThread().join();
+    }
+
+    private static void configure(NetworkListener listener) {
+        TCPNIOTransport transport = listener.getTransport();
+        int workers = Integer.getInteger("bookstore.server.workers", 0);
+        if (workers > 0) {
+            transport.setWorkerThreadPoolConfig(ThreadPoolConfig.defaultConfig()
+                .setPoolName("bookstore-worker").setCorePoolSize(workers).setMaxPoolSize(workers));
+        }
+        int selectors = Integer.getInteger("bookstore.server.selectors", 0);
+        if (selectors > 0) {
+            transport.setSelectorRunnersCount(selectors);
+        }
+        transport.setServerConnectionBackLog(Integer.getInteger("bookstore.server.backlog", 4096));
+        listener.getKeepAlive().setIdleTimeoutInSeconds(Integer.getInteger("bookstore.server.keepAliveSec", 30));
+        listener.getKeepAlive().setMaxRequestsCount(Integer.getInteger("bookstore.server.keepAliveRequests", 256));
+    }
+
+    // Loads the classes of the common request paths, for the class-data sharing archive
+    private static void train(URI base) throws IOException {
+        for (String path : TRAINING_PATHS) {
+            HttpURLConnection connection = (HttpURLConnection) base.resolve(path).toURL().openConnection();
+            int status = connection.getResponseCode();
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                body.readAllBytes();
+                body.close();
+            }
+            LOGGER.info("Training request", "path", path, "status", status);
+        }
+    }
+}
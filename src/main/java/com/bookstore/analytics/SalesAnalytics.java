@@ -0,0 +1,95 @@
+package com.bookstore.analytics;
+
+import com.bookstore.models.Order;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sales aggregates kept current as orders are placed, so reports never scan
+// orders: units and revenue per book, per author and per hour, plus top-k
+// rankings of books (by units) and authors (by revenue). Counters are
+// LongAdders, which stripe contended increments across cells. Revenue comes
+// from the unit prices captured on each order, in cents, and a sale counts for
+// the author captured with its order line, so recovery, which rebuilds
+// everything from the restored and archived orders, attributes it the same way
+// however the book was since re-authored or deleted.
+public final class SalesAnalytics {
+    public static final int MAX_TOP = 100;
+    public static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final Map<Integer, Totals> books = new ConcurrentHashMap<>();
+    private static final Map<Integer, Totals> authors = new ConcurrentHashMap<>();
+    // Start of the hour (epoch millis) -> that hour's sales
+    private static final ConcurrentSkipListMap<Long, Totals> hours = new ConcurrentSkipListMap<>();
+    private static final TopK topBooks = new TopK(MAX_TOP);
+    private static final TopK topAuthors = new TopK(MAX_TOP);
+
+    private SalesAnalytics() {}
+
+    // 'orders' is only counted for books and hours
+    public static final class Totals {
+        private final LongAdder orders = new LongAdder();
+        private final LongAdder units = new LongAdder();
+        private final LongAdder revenueCents = new LongAdder();
+
+        public long orders() { return orders.sum(); }
+        public long units() { return units.sum(); }
+        public long revenueCents() { return revenueCents.sum(); }
+
+        void add(int quantity, long revenue) {
+            units.add(quantity);
+            revenueCents.add(revenue);
+        }
+    }
+
+    public static void record(Order order) {
+        long time = order.getOrderDate().getTime();
+        Totals hour = hours.computeIfAbsent(Math.floorDiv(time, HOUR_MILLIS) * HOUR_MILLIS, key -> new Totals());
+        hour.orders.increment();
+        for (int i = 0; i < order.lineCount(); i++) {
+            int bookId = order.bookIdAt(i);
+            int quantity = order.quantityAt(i);
+            long revenue = (long) order.unitPriceCentsAt(i) * quantity;
+            hour.add(quantity, revenue);
+
+            Totals book = books.computeIfAbsent(bookId, key -> new Totals());
+            book.orders.increment();
+            book.add(quantity, revenue);
+            topBooks.offer(bookId, book.units());
+
+            int authorId = order.authorIdAt(i);
+            if (authorId != 0) {
+                Totals author = authors.computeIfAbsent(authorId, key -> new Totals());
+                author.add(quantity, revenue);
+                topAuthors.offer(authorId, author.revenueCents());
+            }
+        }
+    }
+
+    // null when nothing has sold
+    public static Totals book(int bookId) {
+        return books.get(bookId);
+    }
+
+    public static Totals author(int authorId) {
+        return authors.get(authorId);
+    }
+
+    // Best sellers by units, at most MAX_TOP
+    public static int[] topBooks(int limit) {
+        return topBooks.top(limit);
+    }
+
+    // Authors by revenue, at most MAX_TOP
+    public static int[] topAuthors(int limit) {
+        return topAuthors.top(limit);
+    }
+
+    // Hourly totals for hours starting in [fromMillis, toMillis)
+    public static NavigableMap<Long, Totals> hours(long fromMillis, long toMillis) {
+        return hours.subMap(fromMillis, true, toMillis, false);
+    }
+}
@@ -0,0 +1,68 @@
+package com.bookstore.analytics;
+
+import java.util.Arrays;
+
+// The k ids with the highest scores, for scores that only ever grow. Callers
+// offer an id's current total after adding to it; anything at or below the
+// smallest retained score is turned away by one volatile read, so only ids
+// that enter or move within the top k take the lock. Reads copy k entries.
+final class TopK {
+    private final int k;
+    private final int[] ids;
+    private final long[] scores;
+    private int size;
+    private volatile long floor; // smallest retained score once full, else 0
+
+    TopK(int k) {
+        this.k = k;
+        this.ids = new int[k];
+        this.scores = new long[k];
+    }
+
+    void offer(int id, long score) {
+        if (score <= floor) return;
+        synchronized (this) {
+            int slot = -1;
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    slot = i;
+                    break;
+                }
+            }
+            if (slot < 0) {
+                if (size < k) {
+                    slot = size++;
+                } else {
+                    slot = lowest();
+                    if (score <= scores[slot]) return;
+                }
+                ids[slot] = id;
+            } else if (score <= scores[slot]) {
+                // A stale total from a slower thread
+                return;
+            }
+            scores[slot] = score;
+            if (size == k) floor = scores[lowest()];
+        }
+    }
+
+    // Ids by descending score (ties by id), at most 'limit' of them
+    synchronized int[] top(int limit) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> scores[a] != scores[b]
+            ? Long.compare(scores[b], scores[a])
+            : Integer.compare(ids[a], ids[b]));
+        int[] top = new int[Math.min(limit, size)];
+        for (int i = 0; i < top.length; i++) top[i] = ids[order[i]];
+        return top;
+    }
+
+    private int lowest() {
+        int lowest = 0;
+        for (int i = 1; i < size; i++) {
+            if (scores[i] < scores[lowest]) lowest = i;
+        }
+        return lowest;
+    }
+}
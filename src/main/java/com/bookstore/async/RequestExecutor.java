@@ -0,0 +1,116 @@
+package com.bookstore.async;
+
+import com.bookstore.exceptions.ErrorCode;
+import com.bookstore.logging.StructuredLogger;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs the handlers of @Suspended resource methods, so slow paths (checkout,
+// persistence I/O) stop holding container threads that cheap reads need.
+// Selected by AppConfig, from the constructor argument or:
+//   -Dbookstore.async=off          off | pool | virtual | auto
+//   -Dbookstore.async.poolSize=64  worker threads for 'pool'
+//   -Dbookstore.async.queueSize=1024
+// 'off' runs the handler on the container thread, exactly as before. 'virtual'
+// needs Java 21+ and falls back to 'pool' on older JVMs; 'auto' picks whichever
+// is available. A full pool answers 503 with Retry-After instead of queueing
+// without bound.
+public final class RequestExecutor {
+    public enum Mode { OFF, POOL, VIRTUAL, AUTO }
+
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(RequestExecutor.class);
+    private static final Executor DIRECT = Runnable::run;
+
+    private static volatile Executor executor = DIRECT;
+    private static volatile Mode active = Mode.OFF;
+
+    private RequestExecutor() {}
+
+    // The mode named by -Dbookstore.async
+    public static Mode configuredMode() {
+        return Mode.valueOf(System.getProperty("bookstore.async", "off").toUpperCase(Locale.ROOT));
+    }
+
+    public static synchronized void configure(Mode mode) {
+        Executor previous = executor;
+        Executor next = DIRECT;
+        Mode resolved = Mode.OFF;
+        if (mode == Mode.VIRTUAL || mode == Mode.AUTO) {
+            next = virtualThreadPerTask();
+            resolved = Mode.VIRTUAL;
+            if (next == null) {
+                if (mode == Mode.VIRTUAL) {
+                    LOGGER.warning("Virtual threads need Java 21+, using a bounded pool", "java", Runtime.version().feature());
+                }
+                mode = Mode.POOL;
+            }
+        }
+        if (mode == Mode.POOL) {
+            next = boundedPool(Integer.getInteger("bookstore.async.poolSize", 64),
+                Integer.getInteger("bookstore.async.queueSize", 1024));
+            resolved = Mode.POOL;
+        }
+        executor = next;
+        active = resolved;
+        if (previous instanceof ExecutorService) {
+            ((ExecutorService) previous).shutdown();
+        }
+        LOGGER.info("Request execution configured", "mode", resolved);
+    }
+
+    public static Mode mode() {
+        return active;
+    }
+
+    // Resumes 'response' with the handler's result, or with the exception it threw
+    // (so the usual exception mappers apply)
+    public static void submit(AsyncResponse response, Supplier<Response> handler) {
+        try {
+            executor.execute(() -> {
+                try {
+                    response.resume(handler.get());
+                } catch (RuntimeException | Error e) {
+                    response.resume(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            response.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", 1)
+                .entity(ErrorCode.OVERLOADED.body("Request queue is full, retry later"))
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .build());
+        }
+    }
+
+    private static Executor boundedPool(int poolSize, int queueSize) {
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize), task -> {
+                Thread thread = new Thread(task, "bookstore-request-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Looked up reflectively: the build targets Java 11
+    private static ExecutorService virtualThreadPerTask() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bookstore.async;
+
+import com.bookstore.logging.StructuredLogger;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Hashed timing wheel: a timeout lands in slot (deadline tick mod wheel size)
+// with a count of full revolutions still to wait. Only the worker thread walks
+// the slots; other threads hand timeouts over through a queue, so scheduling
+// is an O(1) enqueue and cancelling an O(1) flag write (the node is dropped
+// when its slot comes round). Expired timeouts are handed to 'onExpiry' on the
+// worker thread, never on the caller's.
+public final class TimingWheel<T> {
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(TimingWheel.class);
+
+    private final long tickNanos;
+    private final Node<T>[] slots;
+    private final int mask;
+    private final Queue<Node<T>> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<T> onExpiry;
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, Consumer<T> onExpiry) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.slots = new Node[Integer.highestOneBit(Math.max(wheelSize, 2) * 2 - 1)];
+        this.mask = slots.length - 1;
+        this.onExpiry = onExpiry;
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public static final class Timeout {
+        volatile boolean cancelled;
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    public Timeout schedule(T payload, long delay, TimeUnit unit) {
+        Node<T> node = new Node<>(payload, System.nanoTime() - startNanos + unit.toNanos(delay));
+        pending.add(node);
+        return node.timeout;
+    }
+
+    // Ends the worker thread; timeouts still pending never fire
+    public void stop() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) + 1_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickAt = (tick + 1) * tickNanos;
+            long sleep;
+            while ((sleep = nextTickAt - (System.nanoTime() - startNanos)) > 0) {
+                if (!running) return;
+                LockSupport.parkNanos(this, sleep);
+            }
+            tick++;
+            transferPending();
+            expire((int) (tick & mask));
+        }
+    }
+
+    private void transferPending() {
+        Node<T> node;
+        while ((node = pending.poll()) != null) {
+            if (node.timeout.cancelled) continue;
+            // Anything already due fires on the current tick
+            long deadlineTick = Math.max(tick, (node.deadlineNanos + tickNanos - 1) / tickNanos);
+            node.rounds = (deadlineTick - tick) / slots.length;
+            int slot = (int) (deadlineTick & mask);
+            node.next = slots[slot];
+            slots[slot] = node;
+        }
+    }
+
+    private void expire(int slot) {
+        Node<T> kept = null;
+        Node<T> node = slots[slot];
+        slots[slot] = null;
+        while (node != null) {
+            Node<T> next = node.next;
+            if (node.timeout.cancelled) {
+                // dropped
+            } else if (node.rounds > 0) {
+                node.rounds--;
+                node.next = kept;
+                kept = node;
+            } else {
+                try {
+                    onExpiry.accept(node.payload);
+                } catch (RuntimeException e) {
+                    LOGGER.warning("Timeout handler failed", "error", e.toString());
+                }
+            }
+            node = next;
+        }
+        slots[slot] = kept;
+    }
+
+    private static final class Node<T> {
+        final T payload;
+        final long deadlineNanos;
+        final Timeout timeout = new Timeout();
+        long rounds;
+        Node<T> next;
+
+        Node(T payload, long deadlineNanos) {
+            this.payload = payload;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.bookstore.encoding;
+
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.models.Order;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+
+// application/cbor bodies for the catalog and order endpoints, chosen by the
+// Accept header (Content-Type for request bodies). Writes Book, Author, Order
+// and lists or maps of them; reads Book and Author.
+@Provider
+@Produces(CborProvider.APPLICATION_CBOR)
+@Consumes(CborProvider.APPLICATION_CBOR)
+public class CborProvider implements MessageBodyWriter<Object>, MessageBodyReader<Object> {
+    public static final String APPLICATION_CBOR = "application/cbor";
+    public static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return Book.class.isAssignableFrom(type) || Author.class.isAssignableFrom(type)
+            || Order.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)
+            || Map.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> headers, OutputStream out) throws IOException {
+        CborWriter writer = new CborWriter(out);
+        writer.writeValue(value);
+        writer.flush();
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == Book.class || type == Author.class;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> headers, InputStream in) throws IOException {
+        CborReader reader = new CborReader(in.readAllBytes());
+        return Book.class.equals(type) ? reader.readBook() : reader.readAuthor();
+    }
+}
@@ -0,0 +1,250 @@
+package com.bookstore.encoding;
+
+import com.bookstore.exceptions.InvalidInputException;
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import java.nio.charset.StandardCharsets;
+
+import static com.bookstore.encoding.CborWriter.*;
+
+// CBOR decoder for request bodies: a Book or Author map with the same keys as
+// the JSON form. Unknown keys are skipped, null and undefined read as absent,
+// and any number type is accepted where the field is numeric. Definite and
+// indefinite-length maps and arrays are both understood.
+final class CborReader {
+    private static final int BREAK = 0xff;
+    private static final int INDEFINITE = -1;
+    private static final int MAX_DEPTH = 32;
+
+    private final byte[] data;
+    private int position;
+
+    CborReader(byte[] data) {
+        this.data = data;
+    }
+
+    Book readBook() {
+        Book book = new Book();
+        int entries = readMapHeader();
+        for (int i = 0; entries == INDEFINITE ? !atBreak() : i < entries; i++) {
+            String key = readText();
+            switch (key) {
+                case "id": book.setId(readInteger()); break;
+                case "title": book.setTitle(readNullableText()); break;
+                case "authorId": book.setAuthorId(readInteger()); break;
+                case "isbn": book.setIsbn(readNullableText()); break;
+                case "publicationYear": book.setPublicationYear(readInteger()); break;
+                case "price": book.setPrice(readNumber()); break;
+                case "stock": book.setStock(readInteger()); break;
+                default: skip(0);
+            }
+        }
+        return book;
+    }
+
+    Author readAuthor() {
+        Author author = new Author();
+        int entries = readMapHeader();
+        for (int i = 0; entries == INDEFINITE ? !atBreak() : i < entries; i++) {
+            String key = readText();
+            switch (key) {
+                case "id": author.setId(readInteger()); break;
+                case "firstName": author.setFirstName(readNullableText()); break;
+                case "lastName": author.setLastName(readNullableText()); break;
+                case "biography": author.setBiography(readNullableText()); break;
+                default: skip(0);
+            }
+        }
+        return author;
+    }
+
+    private int readMapHeader() {
+        int initial = next();
+        if (initial >>> 5 != MAP) {
+            throw malformed("expected a map");
+        }
+        long entries = argument(initial);
+        if (entries > data.length - position) {
+            throw malformed("truncated map");
+        }
+        return (int) entries;
+    }
+
+    // Consumes the break that ends an indefinite-length item, if it is next
+    private boolean atBreak() {
+        if (peek() == BREAK) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean readNull() {
+        int initial = peek();
+        if (initial == NULL || initial == NULL + 1) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private String readNullableText() {
+        return readNull() ? null : readText();
+    }
+
+    private String readText() {
+        int initial = next();
+        if (initial >>> 5 != TEXT) {
+            throw malformed("expected a text string");
+        }
+        long length = argument(initial);
+        if (length == INDEFINITE || length > data.length - position) {
+            throw malformed(length == INDEFINITE ? "indefinite-length text is not supported" : "truncated text");
+        }
+        String text = new String(data, position, (int) length, StandardCharsets.UTF_8);
+        position += (int) length;
+        return text;
+    }
+
+    private Integer readInteger() {
+        if (readNull()) {
+            return null;
+        }
+        int initial = next();
+        int major = initial >>> 5;
+        if (major != UNSIGNED && major != NEGATIVE) {
+            throw malformed("expected an integer");
+        }
+        long value = argument(initial);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw malformed("integer out of range");
+        }
+        return major == UNSIGNED ? (int) value : (int) (-1 - value);
+    }
+
+    private Double readNumber() {
+        if (readNull()) {
+            return null;
+        }
+        int initial = peek();
+        switch (initial) {
+            case FLOAT16:
+                position++;
+                return (double) halfToFloat((int) fixed(2));
+            case FLOAT32:
+                position++;
+                return (double) Float.intBitsToFloat((int) fixed(4));
+            case FLOAT64:
+                position++;
+                return Double.longBitsToDouble(fixed(8));
+            default:
+                return readInteger().doubleValue();
+        }
+    }
+
+    // Skips one data item of any type; depth bounds the nesting a body may use
+    private void skip(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw malformed("nested too deeply");
+        }
+        int initial = next();
+        int major = initial >>> 5;
+        long argument = argument(initial);
+        switch (major) {
+            case BYTES:
+            case TEXT:
+                if (argument == INDEFINITE) {
+                    while (!atBreak()) {
+                        skip(depth + 1);
+                    }
+                } else if (argument > data.length - position) {
+                    throw malformed("truncated string");
+                } else {
+                    position += (int) argument;
+                }
+                break;
+            case ARRAY:
+            case MAP:
+                long items = argument == INDEFINITE ? INDEFINITE : major == MAP ? argument * 2 : argument;
+                for (long i = 0; items == INDEFINITE ? !atBreak() : i < items; i++) {
+                    skip(depth + 1);
+                }
+                break;
+            case TAG:
+                skip(depth + 1);
+                break;
+            default:
+                // Integers and simple values are fully consumed by argument()
+                if (argument == INDEFINITE) {
+                    throw malformed("unexpected break");
+                }
+        }
+    }
+
+    // The argument of an initial byte: a small value, a length, or the raw bits of a float
+    private long argument(int initial) {
+        int additional = initial & 0x1f;
+        if (additional < 24) return additional;
+        switch (additional) {
+            case 24: return fixed(1);
+            case 25: return fixed(2);
+            case 26: return fixed(4);
+            case 27:
+                long value = fixed(8);
+                if (value < 0 && initial >>> 5 != SIMPLE) {
+                    throw malformed("integer out of range");
+                }
+                return value;
+            case 31:
+                int major = initial >>> 5;
+                if (major == UNSIGNED || major == NEGATIVE || major == TAG) {
+                    throw malformed("reserved additional information");
+                }
+                return INDEFINITE;
+            default:
+                throw malformed("reserved additional information");
+        }
+    }
+
+    private long fixed(int bytes) {
+        if (data.length - position < bytes) {
+            throw malformed("truncated");
+        }
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | (data[position++] & 0xff);
+        }
+        return value;
+    }
+
+    private int peek() {
+        if (position == data.length) {
+            throw malformed("truncated");
+        }
+        return data[position] & 0xff;
+    }
+
+    private int next() {
+        int initial = peek();
+        position++;
+        return initial;
+    }
+
+    private static float halfToFloat(int half) {
+        int exponent = (half >>> 10) & 0x1f;
+        int mantissa = half & 0x3ff;
+        float magnitude;
+        if (exponent == 0) {
+            magnitude = mantissa * 0x1p-24f;
+        } else if (exponent == 31) {
+            magnitude = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+        } else {
+            magnitude = (mantissa + 1024) * (float) Math.scalb(1.0, exponent - 25);
+        }
+        return (half & 0x8000) != 0 ? -magnitude : magnitude;
+    }
+
+    private InvalidInputException malformed(String reason) {
+        return new InvalidInputException("Malformed CBOR body at byte " + position + ": " + reason);
+    }
+}
@@ -0,0 +1,255 @@
+package com.bookstore.encoding;
+
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.models.Order;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+// CBOR (RFC 8949) encoder for the API types. Models are written field by field
+// with the same keys as their JSON form, nulls omitted; integers take their
+// shortest encoding and doubles are sent as float32 whenever that is exact.
+final class CborWriter {
+    static final int UNSIGNED = 0, NEGATIVE = 1, BYTES = 2, TEXT = 3, ARRAY = 4, MAP = 5, TAG = 6, SIMPLE = 7;
+    static final int FALSE = 0xf4, TRUE = 0xf5, NULL = 0xf6, FLOAT16 = 0xf9, FLOAT32 = 0xfa, FLOAT64 = 0xfb;
+    static final int EPOCH_TAG = 1;
+
+    // Keys are fixed, so their encodings are too
+    private static final byte[] ID = key("id"), TITLE = key("title"), AUTHOR_ID = key("authorId"),
+        ISBN = key("isbn"), PUBLICATION_YEAR = key("publicationYear"), PRICE = key("price"),
+        STOCK = key("stock"), FIRST_NAME = key("firstName"), LAST_NAME = key("lastName"),
+        BIOGRAPHY = key("biography"), CUSTOMER_ID = key("customerId"), ITEMS = key("items"),
+        ORDER_DATE = key("orderDate"), UNIT_PRICES = key("unitPrices");
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+
+    CborWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    void writeValue(Object value) throws IOException {
+        if (value == null) {
+            writeByte(NULL);
+        } else if (value instanceof Book) {
+            writeBook((Book) value);
+        } else if (value instanceof Author) {
+            writeAuthor((Author) value);
+        } else if (value instanceof Order) {
+            writeOrder((Order) value);
+        } else if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Date) {
+            writeDate((Date) value);
+        } else if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+            writeHeader(ARRAY, values.size());
+            for (Object element : values) {
+                writeValue(element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> entries = (Map<?, ?>) value;
+            writeHeader(MAP, entries.size());
+            for (Map.Entry<?, ?> entry : entries.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("No CBOR encoding for " + value.getClass().getName());
+        }
+    }
+
+    // Writes out what is still buffered; the underlying stream is left open
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void writeBook(Book book) throws IOException {
+        Integer id = book.getId(), authorId = book.getAuthorId(), year = book.getPublicationYear(), stock = book.getStock();
+        String title = book.getTitle(), isbn = book.getIsbn();
+        Double price = book.getPrice();
+        writeHeader(MAP, present(authorId) + present(id) + present(isbn) + present(price)
+            + present(year) + present(stock) + present(title));
+        if (authorId != null) { writeKey(AUTHOR_ID); writeLong(authorId); }
+        if (id != null) { writeKey(ID); writeLong(id); }
+        if (isbn != null) { writeKey(ISBN); writeString(isbn); }
+        if (price != null) { writeKey(PRICE); writeDouble(price); }
+        if (year != null) { writeKey(PUBLICATION_YEAR); writeLong(year); }
+        if (stock != null) { writeKey(STOCK); writeLong(stock); }
+        if (title != null) { writeKey(TITLE); writeString(title); }
+    }
+
+    private void writeAuthor(Author author) throws IOException {
+        Integer id = author.getId();
+        String biography = author.getBiography(), firstName = author.getFirstName(), lastName = author.getLastName();
+        writeHeader(MAP, present(biography) + present(firstName) + present(id) + present(lastName));
+        if (biography != null) { writeKey(BIOGRAPHY); writeString(biography); }
+        if (firstName != null) { writeKey(FIRST_NAME); writeString(firstName); }
+        if (id != null) { writeKey(ID); writeLong(id); }
+        if (lastName != null) { writeKey(LAST_NAME); writeString(lastName); }
+    }
+
+    // Item and price maps are keyed by the integer book id, not its string form as in JSON
+    private void writeOrder(Order order) throws IOException {
+        Integer customerId = order.getCustomerId(), id = order.getId();
+        Date orderDate = order.getOrderDate();
+        int lines = order.lineCount();
+        boolean priced = order.hasUnitPrices();
+        writeHeader(MAP, present(customerId) + present(id) + 1 + present(orderDate) + (priced ? 1 : 0));
+        if (customerId != null) { writeKey(CUSTOMER_ID); writeLong(customerId); }
+        if (id != null) { writeKey(ID); writeLong(id); }
+        writeKey(ITEMS);
+        writeHeader(MAP, lines);
+        for (int i = 0; i < lines; i++) {
+            writeLong(order.bookIdAt(i));
+            writeLong(order.quantityAt(i));
+        }
+        if (orderDate != null) { writeKey(ORDER_DATE); writeDate(orderDate); }
+        if (priced) {
+            writeKey(UNIT_PRICES);
+            writeHeader(MAP, lines);
+            for (int i = 0; i < lines; i++) {
+                writeLong(order.bookIdAt(i));
+                writeDouble(order.unitPriceCentsAt(i) / 100.0);
+            }
+        }
+    }
+
+    private static int present(Object field) {
+        return field == null ? 0 : 1;
+    }
+
+    // Tag 1: seconds since the epoch, fractional only when the date has milliseconds
+    private void writeDate(Date date) throws IOException {
+        long millis = date.getTime();
+        writeHeader(TAG, EPOCH_TAG);
+        if (millis % 1000 == 0) {
+            writeLong(millis / 1000);
+        } else {
+            writeDouble(millis / 1000.0);
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value >= 0) {
+            writeHeader(UNSIGNED, value);
+        } else {
+            writeHeader(NEGATIVE, -1 - value);
+        }
+    }
+
+    private void writeDouble(double value) throws IOException {
+        float single = (float) value;
+        if (single == value || Double.isNaN(value)) {
+            ensure(5);
+            buffer[position++] = (byte) FLOAT32;
+            putInt(Float.floatToIntBits(single));
+        } else {
+            ensure(9);
+            buffer[position++] = (byte) FLOAT64;
+            long bits = Double.doubleToLongBits(value);
+            putInt((int) (bits >>> 32));
+            putInt((int) bits);
+        }
+    }
+
+    // ASCII strings, the common case, are copied without an intermediate byte[]
+    private void writeString(String value) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeHeader(TEXT, utf8.length);
+                writeBytes(utf8, utf8.length);
+                return;
+            }
+        }
+        writeHeader(TEXT, length);
+        int written = 0;
+        while (written < length) {
+            if (position == buffer.length) {
+                flush();
+            }
+            int chunk = Math.min(length - written, buffer.length - position);
+            for (int i = 0; i < chunk; i++) {
+                buffer[position++] = (byte) value.charAt(written++);
+            }
+        }
+    }
+
+    private void writeKey(byte[] key) throws IOException {
+        writeBytes(key, key.length);
+    }
+
+    private void writeHeader(int major, long argument) throws IOException {
+        ensure(9);
+        int type = major << 5;
+        if (argument < 24) {
+            buffer[position++] = (byte) (type | argument);
+        } else if (argument < 0x100) {
+            buffer[position++] = (byte) (type | 24);
+            buffer[position++] = (byte) argument;
+        } else if (argument < 0x10000) {
+            buffer[position++] = (byte) (type | 25);
+            buffer[position++] = (byte) (argument >>> 8);
+            buffer[position++] = (byte) argument;
+        } else if (argument < 0x100000000L) {
+            buffer[position++] = (byte) (type | 26);
+            putInt((int) argument);
+        } else {
+            buffer[position++] = (byte) (type | 27);
+            putInt((int) (argument >>> 32));
+            putInt((int) argument);
+        }
+    }
+
+    private void putInt(int value) {
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes, int length) throws IOException {
+        if (length > buffer.length - position) {
+            flush();
+            if (length > buffer.length) {
+                out.write(bytes, 0, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, length);
+        position += length;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - position < bytes) {
+            flush();
+        }
+    }
+
+    private static byte[] key(String name) {
+        byte[] ascii = name.getBytes(StandardCharsets.US_ASCII);
+        byte[] key = new byte[ascii.length + 1];
+        key[0] = (byte) ((TEXT << 5) | ascii.length);
+        System.arraycopy(ascii, 0, key, 1, ascii.length);
+        return key;
+    }
+}
@@ -0,0 +1,211 @@
+package com.bookstore.encoding;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// gzip or deflate response bodies, as the client's Accept-Encoding allows.
+// The first minBytes of a body are held back: a body that ends within them
+// goes out as is, since compressing it would save little and cost a deflater.
+//   -Dbookstore.compression.minBytes=1024   smaller bodies stay uncompressed; -1 disables compression
+//   -Dbookstore.compression.level=1         deflate level, 1 (fastest) to 9 (smallest)
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+    static final int MIN_BYTES = Integer.getInteger("bookstore.compression.minBytes", 1024);
+    static final int LEVEL = Integer.getInteger("bookstore.compression.level", 1);
+
+    private static final String GZIP = "gzip", DEFLATE = "deflate";
+
+    @Context
+    private HttpHeaders request;
+
+    public static boolean enabled() {
+        return MIN_BYTES >= 0;
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (!compressible(context.getMediaType()) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            context.proceed();
+            return;
+        }
+        // Compressed or not, the body depends on Accept-Encoding
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String coding = negotiate(request.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (coding == null) {
+            context.proceed();
+            return;
+        }
+        ThresholdStream body = new ThresholdStream(context.getOutputStream(), headers, coding);
+        context.setOutputStream(body);
+        try {
+            context.proceed();
+            body.finish();
+        } finally {
+            body.release();
+        }
+    }
+
+    private static boolean compressible(MediaType type) {
+        if (type == null) {
+            return false;
+        }
+        if (type.getType().equals("text")) {
+            return true;
+        }
+        String subtype = type.getSubtype();
+        return type.getType().equals("application")
+            && (subtype.equals("json") || subtype.equals("x-ndjson") || subtype.equals("cbor"));
+    }
+
+    // gzip, else deflate, among the codings with a non-zero q-value; '*' counts as gzip
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String element : acceptEncoding.split(",")) {
+            int semicolon = element.indexOf(';');
+            String coding = (semicolon < 0 ? element : element.substring(0, semicolon)).trim();
+            if (semicolon >= 0 && rejected(element.substring(semicolon + 1))) {
+                continue;
+            }
+            if (coding.equalsIgnoreCase(GZIP) || coding.equals("*")) {
+                return GZIP;
+            }
+            deflate |= coding.equalsIgnoreCase(DEFLATE);
+        }
+        return deflate ? DEFLATE : null;
+    }
+
+    // True for a q=0 parameter, the way a client refuses a coding
+    private static boolean rejected(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String[] pair = parameter.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("q")) {
+                try {
+                    return Double.parseDouble(pair[1].trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Buffers up to MIN_BYTES, then either commits to compression (headers are
+    // still unwritten at that point) or, at finish, writes the small body raw
+    private static final class ThresholdStream extends OutputStream {
+        private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        private final OutputStream out;
+        private final MultivaluedMap<String, Object> headers;
+        private final String coding;
+        private byte[] pending = new byte[Math.max(MIN_BYTES, 1)];
+        private int pendingLength;
+        private Deflater deflater;
+        private DeflaterOutputStream compressed;
+        private CRC32 crc;
+        private boolean finished;
+
+        ThresholdStream(OutputStream out, MultivaluedMap<String, Object> headers, String coding) {
+            this.out = out;
+            this.headers = headers;
+            this.coding = coding;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (compressed == null) {
+                if (pendingLength + length < pending.length) {
+                    System.arraycopy(bytes, offset, pending, pendingLength, length);
+                    pendingLength += length;
+                    return;
+                }
+                startCompression();
+            }
+            if (crc != null) {
+                crc.update(bytes, offset, length);
+            }
+            compressed.write(bytes, offset, length);
+        }
+
+        private void startCompression() throws IOException {
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, coding);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            boolean gzip = coding.equals(GZIP);
+            deflater = new Deflater(LEVEL, gzip);
+            if (gzip) {
+                crc = new CRC32();
+                out.write(GZIP_HEADER);
+            }
+            compressed = new DeflaterOutputStream(out, deflater, 8192);
+            byte[] held = pending;
+            int heldLength = pendingLength;
+            pending = null;
+            if (crc != null) {
+                crc.update(held, 0, heldLength);
+            }
+            compressed.write(held, 0, heldLength);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Held bytes wait for the threshold decision; compressed output flushes at finish
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (compressed == null) {
+                out.write(pending, 0, pendingLength);
+                return;
+            }
+            compressed.finish();
+            if (crc != null) {
+                writeIntLE((int) crc.getValue());
+                writeIntLE((int) deflater.getBytesRead());
+            }
+        }
+
+        private void writeIntLE(int value) throws IOException {
+            out.write(value);
+            out.write(value >>> 8);
+            out.write(value >>> 16);
+            out.write(value >>> 24);
+        }
+
+        // Frees the deflater's native memory; the container closes the underlying stream
+        void release() {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        // Writers may close the entity stream; that only ends the body
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+    }
+}
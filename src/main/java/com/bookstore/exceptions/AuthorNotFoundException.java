@@ -1,4 +1,4 @@
 package com.bookstore.exceptions;
-public class AuthorNotFoundException extends RuntimeException {
-    public AuthorNotFoundException(String message) { super(message); }
+public class AuthorNotFoundException extends BookstoreException {
+    public AuthorNotFoundException(String message) { super(ErrorCode.AUTHOR_NOT_FOUND, message); }
 }
\ No newline at end of file
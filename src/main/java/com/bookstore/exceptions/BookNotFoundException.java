@@ -1,4 +1,4 @@
 package com.bookstore.exceptions;
-public class BookNotFoundException extends RuntimeException {
-    public BookNotFoundException(String message) { super(message); }
+public class BookNotFoundException extends BookstoreException {
+    public BookNotFoundException(String message) { super(ErrorCode.BOOK_NOT_FOUND, message); }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.bookstore.exceptions;
+
+// Base of the domain exceptions. They are expected outcomes (unknown ids, bad
+// input, sold-out titles), raised on hot paths and always mapped to a response,
+// so they carry no stack trace and no suppressed list; filling in the trace was
+// most of their cost.
+public abstract class BookstoreException extends RuntimeException {
+    private final ErrorCode code;
+
+    protected BookstoreException(ErrorCode code, String message) {
+        super(message, null, false, false);
+        this.code = code;
+    }
+
+    public ErrorCode getCode() { return code; }
+}
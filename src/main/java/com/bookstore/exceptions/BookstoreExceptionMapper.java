@@ -0,0 +1,19 @@
+package com.bookstore.exceptions;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+// One mapper for every domain exception; status and body come from its ErrorCode
+@Provider
+public class BookstoreExceptionMapper implements ExceptionMapper<BookstoreException> {
+    @Override
+    public Response toResponse(BookstoreException ex) {
+        ErrorCode code = ex.getCode();
+        return Response.status(code.status())
+            .entity(code.body(ex.getMessage()))
+            .type(MediaType.APPLICATION_JSON_TYPE)
+            .build();
+    }
+}
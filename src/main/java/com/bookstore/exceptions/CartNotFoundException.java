@@ -1,4 +1,4 @@
 package com.bookstore.exceptions;
-public class CartNotFoundException extends RuntimeException {
-    public CartNotFoundException(String message) { super(message); }
+public class CartNotFoundException extends BookstoreException {
+    public CartNotFoundException(String message) { super(ErrorCode.CART_NOT_FOUND, message); }
 }
\ No newline at end of file
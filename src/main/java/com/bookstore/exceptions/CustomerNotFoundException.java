@@ -1,4 +1,4 @@
 package com.bookstore.exceptions;
-public class CustomerNotFoundException extends RuntimeException {
-    public CustomerNotFoundException(String message) { super(message); }
+public class CustomerNotFoundException extends BookstoreException {
+    public CustomerNotFoundException(String message) { super(ErrorCode.CUSTOMER_NOT_FOUND, message); }
 }
\ No newline at end of file
@@ -0,0 +1,4 @@
+package com.bookstore.exceptions;
+public class DuplicateEmailException extends BookstoreException {
+    public DuplicateEmailException(String message) { super(ErrorCode.DUPLICATE_EMAIL, message); }
+}
@@ -0,0 +1,4 @@
+package com.bookstore.exceptions;
+public class DuplicateIsbnException extends BookstoreException {
+    public DuplicateIsbnException(String message) { super(ErrorCode.DUPLICATE_ISBN, message); }
+}
@@ -0,0 +1,81 @@
+package com.bookstore.exceptions;
+
+import java.nio.charset.StandardCharsets;
+
+// Every error the API reports: HTTP status and the fixed "error" text. The
+// JSON around the message is encoded once per code, so a response body is one
+// array copy plus the message bytes:
+//   {"error":"Book Not Found","message":"Book with ID 7 not found"}
+public enum ErrorCode {
+    BOOK_NOT_FOUND(404, "Book Not Found"),
+    AUTHOR_NOT_FOUND(404, "Author Not Found"),
+    CUSTOMER_NOT_FOUND(404, "Customer Not Found"),
+    CART_NOT_FOUND(404, "Cart Not Found"),
+    ORDER_NOT_FOUND(404, "Order Not Found"),
+    INVALID_INPUT(400, "Invalid Input"),
+    OUT_OF_STOCK(409, "Out of Stock"),
+    DUPLICATE_ISBN(409, "Duplicate ISBN"),
+    DUPLICATE_EMAIL(409, "Duplicate Email"),
+    OVERLOADED(503, "Service Unavailable"),
+    NOT_DURABLE(500, "Write Not Durable");
+
+    private static final byte[] SUFFIX = "\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final int status;
+    private final String title;
+    private final byte[] prefix;
+    private final byte[] nullMessageBody;
+
+    ErrorCode(int status, String title) {
+        this.status = status;
+        this.title = title;
+        this.prefix = ("{\"error\":\"" + title + "\",\"message\":\"").getBytes(StandardCharsets.UTF_8);
+        this.nullMessageBody = ("{\"error\":\"" + title + "\",\"message\":null}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public int status() { return status; }
+
+    public String title() { return title; }
+
+    // UTF-8 JSON body for one error
+    public byte[] body(String message) {
+        if (message == null) {
+            return nullMessageBody;
+        }
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        if (needsEscaping(text)) {
+            text = escape(message).getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] body = new byte[prefix.length + text.length + SUFFIX.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        System.arraycopy(text, 0, body, prefix.length, text.length);
+        System.arraycopy(SUFFIX, 0, body, prefix.length + text.length, SUFFIX.length);
+        return body;
+    }
+
+    // Bytes of multi-byte UTF-8 sequences are all >= 0x80, so a byte scan is enough
+    private static boolean needsEscaping(byte[] text) {
+        for (byte b : text) {
+            if (b == '"' || b == '\\' || (b >= 0 && b < 0x20)) return true;
+        }
+        return false;
+    }
+
+    private static String escape(String message) {
+        StringBuilder escaped = new StringBuilder(message.length() + 16);
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            switch (c) {
+                case '"': escaped.append("\\\""); break;
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                case '\t': escaped.append("\\t"); break;
+                default:
+                    if (c < 0x20) escaped.append(String.format("\\u%04x", (int) c));
+                    else escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
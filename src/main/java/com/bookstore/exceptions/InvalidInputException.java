@@ -1,4 +1,4 @@
 package com.bookstore.exceptions;
-public class InvalidInputException extends RuntimeException {
-    public InvalidInputException(String message) { super(message); }
+public class InvalidInputException extends BookstoreException {
+    public InvalidInputException(String message) { super(ErrorCode.INVALID_INPUT, message); }
 }
\ No newline at end of file
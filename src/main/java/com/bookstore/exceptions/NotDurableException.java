@@ -0,0 +1,4 @@
+package com.bookstore.exceptions;
+public class NotDurableException extends BookstoreException {
+    public NotDurableException(String message) { super(ErrorCode.NOT_DURABLE, message); }
+}
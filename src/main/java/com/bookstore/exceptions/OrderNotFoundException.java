@@ -1,4 +1,4 @@
 package com.bookstore.exceptions;
-public class OrderNotFoundException extends RuntimeException {
-    public OrderNotFoundException(String message) { super(message); }
+public class OrderNotFoundException extends BookstoreException {
+    public OrderNotFoundException(String message) { super(ErrorCode.ORDER_NOT_FOUND, message); }
 }
\ No newline at end of file
@@ -1,4 +1,4 @@
 package com.bookstore.exceptions;
-public class OutOfStockException extends RuntimeException {
-    public OutOfStockException(String message) { super(message); }
+public class OutOfStockException extends BookstoreException {
+    public OutOfStockException(String message) { super(ErrorCode.OUT_OF_STOCK, message); }
 }
\ No newline at end of file
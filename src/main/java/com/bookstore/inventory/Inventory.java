@@ -0,0 +1,32 @@
+package com.bookstore.inventory;
+
+import com.bookstore.exceptions.OutOfStockException;
+import com.bookstore.models.Book;
+import com.bookstore.persistence.Store;
+import com.bookstore.resources.BookResource;
+
+// Single entry point for stock changes. Every reservation is a CAS on the
+// book's own counter, so there is no global lock and disjoint books never contend.
+// Stock is reserved line by line as it goes into a cart; checkout takes over
+// those reservations and never changes stock itself.
+public final class Inventory {
+    private Inventory() {}
+
+    // Reserve a single line or fail without changing stock
+    public static void reserve(Book book, int quantity) {
+        if (!book.tryReserveStock(quantity)) {
+            throw new OutOfStockException(String.format(
+                "Insufficient stock for Book ID %d. Available: %d, Requested: %d",
+                book.getId(), book.getStock(), quantity
+            ));
+        }
+        BookResource.catalogChanged();
+        Store.stockChanged(book);
+    }
+
+    public static void release(Book book, int quantity) {
+        book.releaseStock(quantity);
+        BookResource.catalogChanged();
+        Store.stockChanged(book);
+    }
+}
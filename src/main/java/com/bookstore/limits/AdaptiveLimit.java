@@ -0,0 +1,122 @@
+package com.bookstore.limits;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Concurrency limit for one class of requests, adjusted from observed latency
+// with a gradient: each window compares the window's mean round trip with a
+// baseline, the lowest recent window mean. While latency stays within 'tolerance' of the baseline
+// the limit grows by about sqrt(limit) per window; beyond that it shrinks in
+// proportion (at most halving per window), and 5xx responses back it off by 10%.
+// Windows where fewer than half the permits were in use leave the limit alone,
+// as latency then says nothing about capacity.
+// Admission is one CAS; samples go to adders, and whichever releasing thread
+// finds the window over folds them in.
+public final class AdaptiveLimit {
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double SMOOTHING = 0.2;          // of limit changes
+    private static final double BASELINE_DRIFT = 0.01;    // per window
+    private static final double BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile int limit;
+    private volatile int windowPeak; // racy maximum of in-flight, good enough for the idle check
+
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAdder windowDrops = new LongAdder();
+    private volatile long windowEnd;
+    private final ReentrantLock windowLock = new ReentrantLock();
+    private double estimate;     // guarded by windowLock
+    private double baselineNanos; // guarded by windowLock
+
+    public AdaptiveLimit(String name, int initialLimit, int minLimit, int maxLimit, double tolerance,
+                         long window, TimeUnit unit) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = unit.toNanos(window);
+        this.estimate = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimate;
+        this.windowEnd = System.nanoTime() + windowNanos;
+    }
+
+    // False when the limit is reached; the caller must then not run the request
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                if (current + 1 > windowPeak) windowPeak = current + 1;
+                return true;
+            }
+        }
+    }
+
+    // 'startNanos' is System.nanoTime() at admission; 'dropped' marks a failed request
+    public void release(long startNanos, boolean dropped) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        windowRttNanos.add(now - startNanos);
+        windowSamples.increment();
+        if (dropped) windowDrops.increment();
+        if (now - windowEnd >= 0 && windowLock.tryLock()) {
+            try {
+                if (now - windowEnd >= 0) endWindow(now);
+            } finally {
+                windowLock.unlock();
+            }
+        }
+    }
+
+    private void endWindow(long now) {
+        if (windowSamples.sum() < MIN_WINDOW_SAMPLES) {
+            return;
+        }
+        long samples = windowSamples.sumThenReset();
+        long rttNanos = windowRttNanos.sumThenReset();
+        long drops = windowDrops.sumThenReset();
+        int peak = windowPeak;
+        windowPeak = inFlight.get();
+        windowEnd = now + windowNanos;
+
+        double windowRtt = Math.max(1.0, (double) rttNanos / samples);
+        // The fastest recent window stands for the unloaded latency. It drifts up
+        // slowly, so a lasting change (a bigger catalog, a slower disk) is re-learned
+        baselineNanos = baselineNanos == 0 ? windowRtt : Math.min(baselineNanos * (1 + BASELINE_DRIFT), windowRtt);
+
+        double next;
+        if (drops > 0) {
+            next = estimate * BACKOFF;
+        } else if (peak < estimate / 2) {
+            return;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos / windowRtt));
+            double target = estimate * gradient + Math.sqrt(estimate);
+            next = estimate + (target - estimate) * SMOOTHING;
+        }
+        estimate = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimate;
+    }
+
+    public String name() { return name; }
+
+    public int limit() { return limit; }
+
+    public int inFlight() { return inFlight.get(); }
+
+    public long rejected() { return rejected.sum(); }
+}
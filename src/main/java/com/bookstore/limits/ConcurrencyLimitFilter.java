@@ -0,0 +1,103 @@
+package com.bookstore.limits;
+
+import com.bookstore.exceptions.ErrorCode;
+import com.bookstore.resources.CartResource;
+import com.bookstore.resources.MetricsResource;
+import com.bookstore.resources.OrderResource;
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Load shedding: separate adaptive concurrency limits (see AdaptiveLimit) for
+//   reads     GET and HEAD on any resource
+//   checkout  cart and order changes
+//   writes    every other change (catalog, authors, customers)
+// so a checkout spike sheds checkouts while reads keep their own permits. A
+// request over its limit is answered 503 with Retry-After at once, before the
+// resource runs, instead of queueing. GET /metrics is never limited.
+// Registered by AppConfig when enabled:
+//   -Dbookstore.limits=off          on enables
+//   -Dbookstore.limits.initial=20   starting limit per class
+//   -Dbookstore.limits.min=4
+//   -Dbookstore.limits.max=1000
+//   -Dbookstore.limits.tolerance=1.5  latency inflation over the baseline taken before shrinking
+//   -Dbookstore.limits.windowMs=100
+// Runs after MetricsFilter, so shed requests still show up as 5xx per endpoint.
+@Provider
+@Priority(Priorities.USER + 100)
+public class ConcurrencyLimitFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String START = ConcurrencyLimitFilter.class.getName() + ".start";
+    private static final String LIMIT = ConcurrencyLimitFilter.class.getName() + ".limit";
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    private static final AdaptiveLimit READS = newLimit("reads");
+    private static final AdaptiveLimit CHECKOUT = newLimit("checkout");
+    private static final AdaptiveLimit WRITES = newLimit("writes");
+    private static final List<AdaptiveLimit> LIMITS = Collections.unmodifiableList(Arrays.asList(READS, CHECKOUT, WRITES));
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    public static boolean enabled() {
+        return "on".equals(System.getProperty("bookstore.limits", "off").toLowerCase(Locale.ROOT));
+    }
+
+    public static List<AdaptiveLimit> limits() {
+        return LIMITS;
+    }
+
+    private static AdaptiveLimit newLimit(String name) {
+        return new AdaptiveLimit(name,
+            Integer.getInteger("bookstore.limits.initial", 20),
+            Integer.getInteger("bookstore.limits.min", 4),
+            Integer.getInteger("bookstore.limits.max", 1000),
+            Double.parseDouble(System.getProperty("bookstore.limits.tolerance", "1.5")),
+            Long.getLong("bookstore.limits.windowMs", 100L), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        Class<?> resource = resourceInfo.getResourceClass();
+        if (resource == null || resource == MetricsResource.class) {
+            return;
+        }
+        String method = request.getMethod();
+        AdaptiveLimit limit = HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) ? READS
+            : resource == CartResource.class || resource == OrderResource.class ? CHECKOUT
+            : WRITES;
+        if (!limit.tryAcquire()) {
+            request.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", RETRY_AFTER_SECONDS)
+                .entity(ErrorCode.OVERLOADED.body("Concurrency limit for " + limit.name() + " reached, retry later"))
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .build());
+            return;
+        }
+        request.setProperty(LIMIT, limit);
+        request.setProperty(START, System.nanoTime());
+    }
+
+    // Also runs for aborted requests, which hold no permit and have no START
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object limit = request.getProperty(LIMIT);
+        Object start = request.getProperty(START);
+        if (limit != null && start != null) {
+            ((AdaptiveLimit) limit).release((Long) start, response.getStatus() >= 500);
+        }
+    }
+}
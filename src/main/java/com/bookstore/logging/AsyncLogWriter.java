@@ -0,0 +1,160 @@
+package com.bookstore.logging;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+// Background thread that formats buffered events and hands them to java.util.logging,
+// keeping formatting and handler I/O off request threads. The writer parks while
+// the buffer is empty and the next producer wakes it, so an idle server does not poll.
+//   -Dbookstore.log.bufferSize=8192   ring buffer capacity (rounded up to a power of two)
+//   -Dbookstore.log.overflow=drop     'drop' counts and discards events when full,
+//                                     'block' makes the caller wait for a free slot
+final class AsyncLogWriter implements Runnable {
+    static final AsyncLogWriter INSTANCE = new AsyncLogWriter(
+        Integer.getInteger("bookstore.log.bufferSize", 8192),
+        !"block".equalsIgnoreCase(System.getProperty("bookstore.log.overflow", "drop"))
+    );
+
+    // Safety net only: producers unpark an idle writer
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long BLOCK_PARK_NANOS = 10_000L;
+    private static final long STOP_TIMEOUT_MILLIS = 5_000L;
+
+    private final RingBuffer<LogEvent> buffer;
+    private final boolean dropOnOverflow;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread thread;
+    private final Thread shutdownHook;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    private AsyncLogWriter(int capacity, boolean dropOnOverflow) {
+        this.buffer = new RingBuffer<>(capacity);
+        this.dropOnOverflow = dropOnOverflow;
+        this.thread = new Thread(this, "bookstore-log-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        // For when the JVM exits without the application being shut down first.
+        // Best effort: JUL's own shutdown hook may close its handlers first
+        this.shutdownHook = new Thread(this::stop, "bookstore-log-flush");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    void enqueue(LogEvent event) {
+        while (!buffer.offer(event)) {
+            if (dropOnOverflow) {
+                dropped.incrementAndGet();
+                return;
+            }
+            if (running) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            } else {
+                drain();
+            }
+        }
+        if (!running) {
+            // Nothing drains the buffer after stop(), so the caller writes its own event
+            drain();
+        } else if (idle) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (drain() == 0) {
+                idle = true;
+                // Re-check after publishing 'idle': a producer that offered before
+                // seeing it did not unpark us
+                if (buffer.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    // Flushes what is buffered and ends the writer thread; called when the
+    // application shuts down, so a redeployed WAR does not leave it behind.
+    // Events logged afterwards are written on the calling thread.
+    void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down; the hook finds the writer stopped
+            }
+        }
+    }
+
+    // Synchronized so the writer thread, stop() and post-stop producers never poll at the same time
+    private synchronized int drain() {
+        int written = 0;
+        LogEvent event;
+        while ((event = buffer.poll()) != null) {
+            write(event);
+            written++;
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            Logger.getLogger(AsyncLogWriter.class.getName())
+                .warning("[SERVER] Log buffer full, dropped=" + lost);
+        }
+        return written;
+    }
+
+    private void write(LogEvent event) {
+        LogRecord record = new LogRecord(event.level, event.render());
+        record.setInstant(Instant.ofEpochMilli(event.timestamp));
+        record.setLoggerName(event.target.getName());
+        record.setSourceClassName(event.target.getName());
+        event.target.log(record);
+    }
+
+    // One buffered call; fields are key/value pairs rendered as key=value
+    static final class LogEvent {
+        final long timestamp = System.currentTimeMillis();
+        final Level level;
+        final Logger target;
+        final String message;
+        final Object[] fields;
+
+        LogEvent(Level level, Logger target, String message, Object[] fields) {
+            this.level = level;
+            this.target = target;
+            this.message = message;
+            this.fields = fields;
+        }
+
+        String render() {
+            StringBuilder line = new StringBuilder(64).append("[SERVER] ").append(message);
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                line.append(' ').append(fields[i]).append('=');
+                Object value = fields[i + 1];
+                if (value instanceof String) {
+                    line.append('"').append(value).append('"');
+                } else {
+                    line.append(value);
+                }
+            }
+            return line.toString();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.bookstore.logging;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Level-guarded, asynchronous front end for java.util.logging.
+// Messages are constant templates plus key/value fields; nothing is formatted
+// unless the level is enabled, and formatting happens on the log writer thread.
+//   LOGGER.info("[GET /books/{id}] Fetching book", "id", id);
+public final class StructuredLogger {
+    private static final Object[] NO_FIELDS = new Object[0];
+
+    private final Logger target;
+
+    private StructuredLogger(Logger target) {
+        this.target = target;
+    }
+
+    public static StructuredLogger getLogger(Class<?> owner) {
+        return new StructuredLogger(Logger.getLogger(owner.getName()));
+    }
+
+    // Flushes buffered events and stops the writer thread; see AsyncLogWriter.stop
+    public static void shutdown() {
+        AsyncLogWriter.INSTANCE.stop();
+    }
+
+    public boolean isLoggable(Level level) {
+        return target.isLoggable(level);
+    }
+
+    public void info(String message) {
+        if (target.isLoggable(Level.INFO)) log(Level.INFO, message, NO_FIELDS);
+    }
+
+    public void info(String message, String key, Object value) {
+        if (target.isLoggable(Level.INFO)) log(Level.INFO, message, new Object[] {key, value});
+    }
+
+    public void info(String message, String key1, Object value1, String key2, Object value2) {
+        if (target.isLoggable(Level.INFO)) log(Level.INFO, message, new Object[] {key1, value1, key2, value2});
+    }
+
+    public void info(String message, String key1, Object value1, String key2, Object value2,
+                     String key3, Object value3) {
+        if (target.isLoggable(Level.INFO)) {
+            log(Level.INFO, message, new Object[] {key1, value1, key2, value2, key3, value3});
+        }
+    }
+
+    public void warning(String message) {
+        if (target.isLoggable(Level.WARNING)) log(Level.WARNING, message, NO_FIELDS);
+    }
+
+    public void warning(String message, String key, Object value) {
+        if (target.isLoggable(Level.WARNING)) log(Level.WARNING, message, new Object[] {key, value});
+    }
+
+    public void warning(String message, String key1, Object value1, String key2, Object value2) {
+        if (target.isLoggable(Level.WARNING)) log(Level.WARNING, message, new Object[] {key1, value1, key2, value2});
+    }
+
+    private void log(Level level, String message, Object[] fields) {
+        AsyncLogWriter.INSTANCE.enqueue(new AsyncLogWriter.LogEvent(level, target, message, fields));
+    }
+}
@@ -0,0 +1,34 @@
+package com.bookstore.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latency, status classes (1xx..5xx) and in-flight requests of one resource method
+public final class EndpointMetrics {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLongArray statusClasses = new AtomicLongArray(6);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    EndpointMetrics(String name) {
+        this.name = name;
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void finished(int status, long nanos) {
+        inFlight.decrementAndGet();
+        latency.record(nanos);
+        statusClasses.incrementAndGet(Math.min(Math.max(status / 100, 0), 5));
+    }
+
+    public String name() { return name; }
+
+    public LatencyHistogram latency() { return latency; }
+
+    public long responses(int statusClass) { return statusClasses.get(statusClass); }
+
+    public int inFlight() { return inFlight.get(); }
+}
@@ -0,0 +1,56 @@
+package com.bookstore.metrics;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Times every matched request per resource method (e.g. BookResource.getBookById).
+// The request filter runs after matching, so unmatched requests (404s from
+// routing) are not recorded. Async requests are timed until they resume.
+@Provider
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String START = MetricsFilter.class.getName() + ".start";
+    private static final String ENDPOINT = MetricsFilter.class.getName() + ".endpoint";
+    private static final ConcurrentMap<Method, EndpointMetrics> ENDPOINTS = new ConcurrentHashMap<>();
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    public static Collection<EndpointMetrics> endpoints() {
+        return Collections.unmodifiableCollection(ENDPOINTS.values());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null) {
+            return;
+        }
+        EndpointMetrics endpoint = ENDPOINTS.get(method);
+        if (endpoint == null) {
+            endpoint = ENDPOINTS.computeIfAbsent(method,
+                key -> new EndpointMetrics(resourceInfo.getResourceClass().getSimpleName() + "." + key.getName()));
+        }
+        endpoint.started();
+        request.setProperty(ENDPOINT, endpoint);
+        request.setProperty(START, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object endpoint = request.getProperty(ENDPOINT);
+        Object start = request.getProperty(START);
+        if (endpoint != null && start != null) {
+            ((EndpointMetrics) endpoint).finished(response.getStatus(), System.nanoTime() - (Long) start);
+        }
+    }
+}
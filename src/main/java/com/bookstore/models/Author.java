@@ -1,12 +1,14 @@
 package com.bookstore.models;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Author {
     private Integer id;
     private String firstName; // Changed from "name" to "firstName" and "lastName"
     private String lastName;
     private String biography;
+    private final AtomicLong revision = new AtomicLong(); // bumped on every update, for ETags
 
     public Author() {}
 
@@ -26,6 +28,8 @@ public class Author {
     public void setLastName(String lastName) { this.lastName = lastName; }
     public String getBiography() { return biography; }
     public void setBiography(String biography) { this.biography = biography; }
+    public long version() { return revision.get(); }
+    public void touch() { revision.incrementAndGet(); }
 
     @Override
     public boolean equals(Object o) {
@@ -1,6 +1,7 @@
 package com.bookstore.models;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Book {
     private Integer id;
@@ -9,7 +10,11 @@ public class Book {
     private String isbn;
     private Integer publicationYear;
     private Double price;
-    private Integer stock;
+    // Atomic (version, stock) pair so concurrent reservations can never oversell
+    // and the journal can order stock changes; null until stock is set
+    private volatile AtomicLong stockState;
+    // Bumped on every non-stock change; see version()
+    private final AtomicLong revision = new AtomicLong();
 
     // Default constructor (required for JAX-RS JSON deserialization)
     public Book() {}
@@ -23,7 +28,7 @@ public class Book {
         this.isbn = isbn;
         this.publicationYear = publicationYear;
         this.price = price;
-        this.stock = stock;
+        setStock(stock);
     }
 
     // Getters and Setters for all attributes
@@ -47,8 +52,69 @@ public class Book {
     public Double getPrice() { return price; }
     public void setPrice(Double price) { this.price = price; }
 
-    public Integer getStock() { return stock; }
-    public void setStock(Integer stock) { this.stock = stock; }
+    public Integer getStock() {
+        AtomicLong state = stockState;
+        return state == null ? null : stockOf(state.get());
+    }
+    public void setStock(Integer stock) {
+        if (stock == null) {
+            stockState = null;
+        } else if (stockState == null) {
+            stockState = new AtomicLong(pack(0, stock));
+        } else {
+            stockState.getAndUpdate(current -> pack(versionOf(current) + 1, stock));
+        }
+    }
+
+    // Decrement-if-sufficient via CAS; returns false without touching stock otherwise
+    public boolean tryReserveStock(int quantity) {
+        AtomicLong state = stockState;
+        if (state == null) return false;
+        long current;
+        do {
+            current = state.get();
+            if (stockOf(current) < quantity) return false;
+        } while (!state.compareAndSet(current, pack(versionOf(current) + 1, stockOf(current) - quantity)));
+        return true;
+    }
+
+    public void releaseStock(int quantity) {
+        AtomicLong state = stockState;
+        if (state != null) {
+            state.getAndUpdate(current -> pack(versionOf(current) + 1, stockOf(current) + quantity));
+        }
+    }
+
+    // Monotonic version covering every field, including stock, for ETags
+    public long version() {
+        return revision.get() + (stockState() >>> 32);
+    }
+
+    public void touch() { revision.incrementAndGet(); }
+
+    // Packed (version, stock) pair for the journal; every stock change bumps the version
+    public long stockState() {
+        AtomicLong state = stockState;
+        return state == null ? 0L : state.get();
+    }
+
+    // Recovery: adopt a journaled stock state unless a newer one is already applied
+    public void restoreStockState(long restored) {
+        AtomicLong state = stockState;
+        if (state == null) {
+            stockState = new AtomicLong(restored);
+            return;
+        }
+        state.getAndUpdate(current -> versionOf(restored) > versionOf(current) ? restored : current);
+    }
+
+    private static long pack(int version, int stock) {
+        return ((long) version << 32) | (stock & 0xFFFFFFFFL);
+    }
+
+    private static int versionOf(long state) { return (int) (state >>> 32); }
+
+    private static int stockOf(long state) { return (int) state; }
 
     // Optional: Override equals and hashCode for data integrity
     @Override
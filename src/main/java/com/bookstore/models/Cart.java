@@ -1,17 +1,46 @@
 package com.bookstore.models;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Cart {
     private Integer customerId; // Added to associate cart with a customer
-    private Map<Integer, Integer> items = new HashMap<>(); // bookId -> quantity
+    // bookId -> quantity, copy-on-write: mutators run under the cart lock and
+    // publish a fresh map, so readers (GET, journal, snapshots) need no lock and
+    // never see a half-updated table. Carts are a handful of lines, so the copy is cheap.
+    private volatile IntIntMap items = new IntIntMap();
+    private final AtomicLong revision = new AtomicLong(); // bumped on every item change, for ETags
 
     // Getters and Setters
     public Integer getCustomerId() { return customerId; }
     public void setCustomerId(Integer customerId) { this.customerId = customerId; }
+    // Read-only snapshot
     public Map<Integer, Integer> getItems() { return items; }
-    public void addItem(Integer bookId, Integer quantity) { items.put(bookId, quantity); }
-    public void removeItem(Integer bookId) { items.remove(bookId); }
-    public void updateItem(Integer bookId, Integer quantity) { items.replace(bookId, quantity); }
-}
\ No newline at end of file
+    public int quantityOf(int bookId) { return items.getInt(bookId); }
+    public boolean hasItems() { return items.size() > 0; }
+    public void forEachItem(IntIntMap.IntIntConsumer action) { items.forEachInt(action); }
+    public void addItem(Integer bookId, Integer quantity) {
+        IntIntMap next = items.copy();
+        next.putInt(bookId, quantity);
+        items = next;
+    }
+    // Returns the removed quantity, 0 if the book was not in the cart
+    public int removeItem(Integer bookId) {
+        if (items.getInt(bookId) == 0) return 0;
+        IntIntMap next = items.copy();
+        int removed = next.removeInt(bookId);
+        items = next;
+        return removed;
+    }
+    public void updateItem(Integer bookId, Integer quantity) {
+        if (items.getInt(bookId) != 0) addItem(bookId, quantity);
+    }
+    public void replaceItems(Map<Integer, Integer> replacement) {
+        IntIntMap next = new IntIntMap(replacement.size());
+        replacement.forEach(next::putInt);
+        items = next;
+    }
+    public void clear() { items = new IntIntMap(); }
+    public long version() { return revision.get(); }
+    public void touch() { revision.incrementAndGet(); }
+}
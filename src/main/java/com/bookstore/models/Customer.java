@@ -1,6 +1,7 @@
 package com.bookstore.models;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Customer {
     private Integer id;
@@ -9,6 +10,7 @@ public class Customer {
     private String email;
     private String password;
     private Cart cart = new Cart(); // Cart initialized here
+    private final AtomicLong revision = new AtomicLong(); // bumped on every update, for ETags
 
     public Customer() {}
 
@@ -37,6 +39,10 @@ public class Customer {
         return cart;
     }
 
+    // The cart is part of the customer's JSON, so its changes count too
+    public long version() { return revision.get() + cart.version(); }
+    public void touch() { revision.incrementAndGet(); }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,183 @@
+package com.bookstore.models;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// bookId -> quantity without boxing: open addressing with linear probing over
+// one interleaved int[] (key, value, key, value, ...). A quantity of 0 means
+// "no line", which doubles as the empty-slot marker, so any int is a valid key.
+// The java.util.Map view exists for JSON and is read-only; owners mutate
+// through putInt/removeInt. Not thread-safe (see Cart for how it is shared).
+public final class IntIntMap extends AbstractMap<Integer, Integer> {
+    private static final int[] NO_SLOTS = new int[0];
+
+    private int[] slots = NO_SLOTS;
+    private int size;
+
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+
+    public IntIntMap() {}
+
+    public IntIntMap(int expectedSize) {
+        if (expectedSize > 0) slots = new int[2 * capacityFor(expectedSize)];
+    }
+
+    public IntIntMap copy() {
+        IntIntMap copy = new IntIntMap();
+        copy.slots = slots.length == 0 ? NO_SLOTS : slots.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    // 0 when the key is absent
+    public int getInt(int key) {
+        if (size == 0) return 0;
+        int mask = slots.length / 2 - 1;
+        for (int i = slotOf(key, mask); ; i = (i + 1) & mask) {
+            int value = slots[2 * i + 1];
+            if (value == 0) return 0;
+            if (slots[2 * i] == key) return value;
+        }
+    }
+
+    // Returns the previous value (0 if none); putting 0 removes the key
+    public int putInt(int key, int value) {
+        if (value == 0) return removeInt(key);
+        if (slots.length == 0 || (size + 1) * 4 > slots.length / 2 * 3) {
+            resize(capacityFor(size + 1));
+        }
+        int mask = slots.length / 2 - 1;
+        for (int i = slotOf(key, mask); ; i = (i + 1) & mask) {
+            int previous = slots[2 * i + 1];
+            if (previous == 0) {
+                slots[2 * i] = key;
+                slots[2 * i + 1] = value;
+                size++;
+                return 0;
+            }
+            if (slots[2 * i] == key) {
+                slots[2 * i + 1] = value;
+                return previous;
+            }
+        }
+    }
+
+    // Returns the removed value (0 if none)
+    public int removeInt(int key) {
+        if (size == 0) return 0;
+        int mask = slots.length / 2 - 1;
+        int i = slotOf(key, mask);
+        while (true) {
+            int value = slots[2 * i + 1];
+            if (value == 0) return 0;
+            if (slots[2 * i] == key) {
+                deleteAt(i, mask);
+                size--;
+                return value;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    public void forEachInt(IntIntConsumer action) {
+        for (int i = 0; i < slots.length; i += 2) {
+            if (slots[i + 1] != 0) action.accept(slots[i], slots[i + 1]);
+        }
+    }
+
+    // Backward-shift deletion: pull later entries of the probe run into the hole,
+    // so lookups never need tombstones
+    private void deleteAt(int hole, int mask) {
+        for (int i = (hole + 1) & mask; slots[2 * i + 1] != 0; i = (i + 1) & mask) {
+            int home = slotOf(slots[2 * i], mask);
+            // Move the entry unless its home lies cyclically in (hole, i]
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                slots[2 * hole] = slots[2 * i];
+                slots[2 * hole + 1] = slots[2 * i + 1];
+                hole = i;
+            }
+        }
+        slots[2 * hole] = 0;
+        slots[2 * hole + 1] = 0;
+    }
+
+    private void resize(int capacity) {
+        int[] old = slots;
+        slots = new int[2 * capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < old.length; j += 2) {
+            if (old[j + 1] == 0) continue;
+            int i = slotOf(old[j], mask);
+            while (slots[2 * i + 1] != 0) i = (i + 1) & mask;
+            slots[2 * i] = old[j];
+            slots[2 * i + 1] = old[j + 1];
+        }
+    }
+
+    // Power of two, at most three quarters full
+    private static int capacityFor(int entries) {
+        int capacity = 4;
+        while (capacity * 3 < entries * 4) capacity <<= 1;
+        return capacity;
+    }
+
+    private static int slotOf(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // java.util.Map view
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public Integer get(Object key) {
+        if (!(key instanceof Integer)) return null;
+        int value = getInt((Integer) key);
+        return value == 0 ? null : value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && getInt((Integer) key) != 0;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, Integer>> entrySet() {
+        return new AbstractSet<Map.Entry<Integer, Integer>>() {
+            @Override
+            public int size() { return size; }
+
+            @Override
+            public Iterator<Map.Entry<Integer, Integer>> iterator() {
+                return new Iterator<Map.Entry<Integer, Integer>>() {
+                    private int next = advance(0);
+
+                    private int advance(int from) {
+                        while (from < slots.length && slots[from + 1] == 0) from += 2;
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() { return next < slots.length; }
+
+                    @Override
+                    public Map.Entry<Integer, Integer> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        Map.Entry<Integer, Integer> entry = new SimpleImmutableEntry<>(slots[next], slots[next + 1]);
+                        next = advance(next + 2);
+                        return entry;
+                    }
+                };
+            }
+        };
+    }
+}
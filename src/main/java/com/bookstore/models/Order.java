@@ -1,18 +1,27 @@
 package com.bookstore.models;
 
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class Order {
+    private static final int[] NONE = new int[0];
+    // Largest unit price whose cents fit the int columns of orders
+    public static final double MAX_PRICE = 21_474_836.47;
+
     private Integer id;
     private Integer customerId;
-    private Map<Integer, Integer> items; // bookId -> quantity
+    private SortedIntIntMap items = SortedIntIntMap.EMPTY; // bookId -> quantity
+    // Unit price of each line at checkout, in cents, aligned with items (ascending
+    // bookId); empty until the order is placed
+    private int[] unitPriceCents = NONE;
+    // Author of each line's book at checkout, aligned the same way; 0 when the book
+    // had no author. Sales stay with this author whatever later happens to the book
+    private int[] authorIds = NONE;
     private Date orderDate;
 
     // Constructor
     public Order() {
-        this.items = new HashMap<>();
     }
 
     // Getters and Setters
@@ -21,7 +30,42 @@ public class Order {
     public Integer getCustomerId() { return customerId; }
     public void setCustomerId(Integer customerId) { this.customerId = customerId; }
     public Map<Integer, Integer> getItems() { return items; }
-    public void setItems(Map<Integer, Integer> items) { this.items = items; }
+    public void setItems(Map<Integer, Integer> items) { this.items = SortedIntIntMap.copyOf(items); }
     public Date getOrderDate() { return orderDate; }
     public void setOrderDate(Date orderDate) { this.orderDate = orderDate; }
-}
\ No newline at end of file
+    // bookId -> unit price, null when not captured
+    public Map<Integer, Double> getUnitPrices() {
+        if (unitPriceCents.length == 0) return null;
+        Map<Integer, Double> prices = new LinkedHashMap<>();
+        for (int i = 0; i < unitPriceCents.length; i++) {
+            prices.put(items.keyAt(i), unitPriceCents[i] / 100.0);
+        }
+        return prices;
+    }
+
+    // Lines by index, in ascending bookId order
+    public int lineCount() { return items.size(); }
+    public int bookIdAt(int index) { return items.keyAt(index); }
+    public int quantityAt(int index) { return items.valueAt(index); }
+    public boolean hasUnitPrices() { return unitPriceCents.length != 0; }
+    public int unitPriceCentsAt(int index) { return unitPriceCents.length == 0 ? 0 : unitPriceCents[index]; }
+    public void setUnitPriceCents(int[] cents) {
+        if (cents.length != 0 && cents.length != items.size()) {
+            throw new IllegalArgumentException("One price per line expected");
+        }
+        this.unitPriceCents = cents.length == 0 ? NONE : cents;
+    }
+    public int authorIdAt(int index) { return authorIds.length == 0 ? 0 : authorIds[index]; }
+    public void setAuthorIds(int[] ids) {
+        if (ids.length != 0 && ids.length != items.size()) {
+            throw new IllegalArgumentException("One author per line expected");
+        }
+        this.authorIds = ids.length == 0 ? NONE : ids;
+    }
+    // Orders are immutable once placed
+    public long version() { return 1L; }
+
+    public static int toCents(double price) {
+        return Math.toIntExact(Math.round(price * 100));
+    }
+}
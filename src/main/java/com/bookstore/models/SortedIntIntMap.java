@@ -0,0 +1,104 @@
+package com.bookstore.models;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Immutable bookId -> quantity snapshot for placed orders: two int[] sorted by
+// key, looked up by binary search. Iterates (and so serializes) in key order.
+public final class SortedIntIntMap extends AbstractMap<Integer, Integer> {
+    public static final SortedIntIntMap EMPTY = new SortedIntIntMap(new int[0], new int[0]);
+
+    private final int[] keys;
+    private final int[] values;
+
+    private SortedIntIntMap(int[] keys, int[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public static SortedIntIntMap copyOf(Map<Integer, Integer> items) {
+        if (items instanceof SortedIntIntMap) return (SortedIntIntMap) items;
+        if (items.isEmpty()) return EMPTY;
+        // Pack (key, value) into longs so one primitive sort orders both
+        long[] pairs = new long[items.size()];
+        int[] n = {0};
+        if (items instanceof IntIntMap) {
+            ((IntIntMap) items).forEachInt((key, value) -> pairs[n[0]++] = pack(key, value));
+        } else {
+            items.forEach((key, value) -> pairs[n[0]++] = pack(key, value));
+        }
+        Arrays.sort(pairs);
+        int[] keys = new int[pairs.length];
+        int[] values = new int[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            keys[i] = (int) (pairs[i] >> 32);
+            values[i] = (int) pairs[i];
+        }
+        return new SortedIntIntMap(keys, values);
+    }
+
+    // 'keys' must be ascending and distinct; the arrays are used as they are
+    public static SortedIntIntMap ofSorted(int[] keys, int[] values) {
+        return keys.length == 0 ? EMPTY : new SortedIntIntMap(keys, values);
+    }
+
+    private static long pack(int key, int value) {
+        return ((long) key << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    public int keyAt(int index) { return keys[index]; }
+
+    public int valueAt(int index) { return values[index]; }
+
+    // 0 when the key is absent
+    public int getInt(int key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index < 0 ? 0 : values[index];
+    }
+
+    @Override
+    public int size() { return keys.length; }
+
+    @Override
+    public Integer get(Object key) {
+        if (!(key instanceof Integer)) return null;
+        int index = Arrays.binarySearch(keys, (Integer) key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && Arrays.binarySearch(keys, (Integer) key) >= 0;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, Integer>> entrySet() {
+        return new AbstractSet<Map.Entry<Integer, Integer>>() {
+            @Override
+            public int size() { return keys.length; }
+
+            @Override
+            public Iterator<Map.Entry<Integer, Integer>> iterator() {
+                return new Iterator<Map.Entry<Integer, Integer>>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() { return next < keys.length; }
+
+                    @Override
+                    public Map.Entry<Integer, Integer> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        Map.Entry<Integer, Integer> entry = new SimpleImmutableEntry<>(keys[next], values[next]);
+                        next++;
+                        return entry;
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,286 @@
+package com.bookstore.persistence;
+
+import com.bookstore.logging.StructuredLogger;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+// Append-only journal with group commit. Request threads only enqueue encoded
+// records; a single writer thread batches whatever is pending into one write()
+// and applies the fsync policy. Every append returns a Commit that completes with
+// its group: once written, and under ALWAYS once fsynced. Under ALWAYS a request
+// waits for that one shared fsync (Store.awaitDurable), never for one of its own;
+// INTERVAL and NEVER are best effort, and nothing waits. The writer parks while
+// there is nothing to write or sync, and the next append wakes it.
+// After a failed write or fsync the file's contents are unknown, so the journal
+// writes nothing more and fails every later Commit until the next restart.
+// Frame layout: [int payloadLength][int crc32(payload)][payload].
+final class Journal implements Runnable {
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(Journal.class);
+    static final int FRAME_HEADER = 8;
+    private static final int BATCH_BYTES = 1 << 20;
+    private static final long RETRY_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long STOP_TIMEOUT_MILLIS = 5_000L;
+
+    enum FsyncPolicy { ALWAYS, INTERVAL, NEVER }
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final Queue<Commit> pending = new ConcurrentLinkedQueue<>();
+    // The commits drained by the flush in progress
+    private final List<Commit> group = new ArrayList<>();
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES);
+    private final CRC32 crc = new CRC32();
+    private final Thread writer;
+
+    private FileChannel channel;
+    private long segment;
+    private long lastSync = System.nanoTime();
+    private boolean dirty;
+    private boolean closed;
+    private IOException failure;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    Journal(Path directory, long segment, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncIntervalMillis * 1_000_000L;
+        this.segment = segment;
+        this.channel = open(segment);
+        this.writer = new Thread(this, "bookstore-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("journal-%010d.log", segment));
+    }
+
+    Commit append(byte[] record) {
+        Commit commit = new Commit(record);
+        pending.offer(commit);
+        if (!running) {
+            failIfClosed();
+        } else if (idle) {
+            LockSupport.unpark(writer);
+        }
+        return commit;
+    }
+
+    // Completes once everything appended before it has completed
+    Commit barrier() {
+        return append(null);
+    }
+
+    boolean syncsEveryCommit() {
+        return fsyncPolicy == FsyncPolicy.ALWAYS;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                if (!flush(false)) {
+                    idle = true;
+                    // Re-check after publishing 'idle': an append that came before it did not unpark us
+                    if (pending.isEmpty() && running) {
+                        long untilSync = nanosUntilSync();
+                        if (untilSync < 0) {
+                            LockSupport.park(this);
+                        } else {
+                            LockSupport.parkNanos(this, untilSync);
+                        }
+                    }
+                    idle = false;
+                }
+            } catch (IOException | UncheckedIOException e) {
+                LOGGER.warning("Journal write failed, journaling stopped until restart", "segment", segment, "error", e.toString());
+                LockSupport.parkNanos(this, RETRY_PARK_NANOS);
+            }
+        }
+    }
+
+    // Starts a new segment and returns its number; records appended before the
+    // call are in the old segment or the new one, never lost
+    synchronized long rotate() throws IOException {
+        flush(true);
+        channel.close();
+        segment++;
+        channel = open(segment);
+        return segment;
+    }
+
+    // Writes everything appended so far and fsyncs it unless the policy is NEVER
+    synchronized void sync() throws IOException {
+        flush(fsyncPolicy != FsyncPolicy.NEVER);
+    }
+
+    // Ends the writer thread, then writes and syncs what it left behind
+    void close() throws IOException {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                flush(true);
+            } finally {
+                closed = true;
+                channel.close();
+            }
+        }
+    }
+
+    // An append that raced with close() may have queued behind the final flush
+    private synchronized void failIfClosed() {
+        if (!closed) {
+            return;
+        }
+        IOException closedError = new IOException("Journal is closed");
+        Commit commit;
+        while ((commit = pending.poll()) != null) {
+            commit.complete(closedError);
+        }
+    }
+
+    // How long the writer may park before an INTERVAL sync is due, or -1 when
+    // nothing written is waiting for one
+    private synchronized long nanosUntilSync() {
+        if (!dirty || fsyncPolicy != FsyncPolicy.INTERVAL) {
+            return -1;
+        }
+        return Math.max(0, fsyncIntervalNanos - (System.nanoTime() - lastSync));
+    }
+
+    // Writes everything pending as one group and completes its commits; returns
+    // false when there was nothing to do
+    private synchronized boolean flush(boolean forceSync) throws IOException {
+        Commit commit;
+        boolean drained;
+        try {
+            boolean wrote = false;
+            while ((commit = pending.poll()) != null) {
+                group.add(commit);
+                byte[] record = commit.record;
+                if (record == null || failure != null) {
+                    continue;
+                }
+                if (batch.remaining() < FRAME_HEADER + record.length) {
+                    writeBatch();
+                    if (record.length + FRAME_HEADER > batch.capacity()) {
+                        writeLarge(record);
+                        wrote = true;
+                        continue;
+                    }
+                }
+                crc.reset();
+                crc.update(record);
+                batch.putInt(record.length).putInt((int) crc.getValue()).put(record);
+                wrote = true;
+            }
+            if (failure == null) {
+                writeBatch();
+                dirty |= wrote;
+
+                long now = System.nanoTime();
+                boolean sync = dirty && (forceSync
+                    || fsyncPolicy == FsyncPolicy.ALWAYS
+                    || (fsyncPolicy == FsyncPolicy.INTERVAL && now - lastSync >= fsyncIntervalNanos));
+                if (sync) {
+                    channel.force(false);
+                    lastSync = now;
+                    dirty = false;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            batch.clear();
+            throw e;
+        } finally {
+            for (Commit done : group) {
+                done.complete(failure);
+            }
+            drained = !group.isEmpty();
+            group.clear();
+        }
+        return drained;
+    }
+
+    private void writeBatch() throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        batch.clear();
+    }
+
+    private void writeLarge(byte[] record) throws IOException {
+        crc.reset();
+        crc.update(record);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + record.length);
+        frame.putInt(record.length).putInt((int) crc.getValue()).put(record).flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(segmentPath(directory, number),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Completion handle for one append (or a barrier, with no record)
+    static final class Commit {
+        final byte[] record;
+        private volatile boolean done;
+        private volatile IOException failure;
+        private volatile Thread waiter;
+
+        private Commit(byte[] record) {
+            this.record = record;
+        }
+
+        // Blocks until the commit's group has completed; throws if it was not journaled
+        void await() throws IOException {
+            boolean interrupted = false;
+            while (!done) {
+                waiter = Thread.currentThread();
+                // Re-check after publishing 'waiter': complete() may have missed it
+                if (!done) {
+                    LockSupport.park(this);
+                    interrupted |= Thread.interrupted();
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private void complete(IOException failure) {
+            this.failure = failure;
+            done = true;
+            Thread parked = waiter;
+            if (parked != null) {
+                LockSupport.unpark(parked);
+            }
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.bookstore.persistence;
+
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.models.Order;
+import com.bookstore.models.SortedIntIntMap;
+import com.bookstore.resources.OrderResource;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Cold tier for placed orders. A periodic sweep moves orders older than the
+// configured age off the heap into immutable columnar segments under
+// <bookstore.data.dir>/archive, which stay memory-mapped and are read in place:
+//   -Dbookstore.archive.ageSec=0            0 disables archiving (the default)
+//   -Dbookstore.archive.intervalSec=86400   time between sweeps
+// A sweep takes the oldest orders by id, so segments cover disjoint, ascending
+// id ranges. Archived orders are left out of later snapshots, and journal
+// replay skips them, so each order lives in exactly one place.
+// Segment layout (little-endian):
+//   header      int MAGIC, int rows, int items, int reserved
+//   ids         int[rows]      ascending
+//   customers   int[rows]
+//   dates       long[rows]     epoch millis
+//   byCustomer  int[rows]      row numbers ordered by (customer, row)
+//   itemStart   int[rows + 1]  offsets into the item columns
+//   bookIds     int[items]     ascending within each order
+//   quantities  int[items]
+//   unitCents   int[items]     unit prices in cents
+//   authorIds   int[items]     author of each line's book at checkout, 0 for none
+public final class OrderArchive {
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(OrderArchive.class);
+    private static final Pattern SEGMENT = Pattern.compile("orders-(\\d+)\\.seg");
+    private static final int MAGIC = 0x424B4132; // "BKA2"
+    private static final int HEADER_BYTES = 16;
+    // Keeps every segment well below the 2 GB a single mapping can address
+    static final int MAX_ROWS = 1 << 20;
+    static final int MAX_ITEMS = 1 << 24;
+
+    // first order id -> segment
+    private static final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private static Path directory;
+    private static ScheduledExecutorService sweeper;
+
+    private OrderArchive() {}
+
+    // Maps the existing segments; runs before journal replay so archived orders are not restored
+    static synchronized void open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        segments.clear();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (SEGMENT.matcher(name).matches()) {
+                    Segment segment = Segment.map(file);
+                    segments.put(segment.firstId, segment);
+                }
+            }
+        }
+        directory = dir;
+        if (!segments.isEmpty()) {
+            OrderResource.restoreIdsThrough(segments.lastEntry().getValue().lastId);
+        }
+    }
+
+    static synchronized void startSweeping() {
+        long ageSeconds = Long.getLong("bookstore.archive.ageSec", 0L);
+        long intervalSeconds = Long.getLong("bookstore.archive.intervalSec", 86400L);
+        if (ageSeconds <= 0 || directory == null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "bookstore-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> sweepQuietly(TimeUnit.SECONDS.toMillis(ageSeconds)),
+            intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        LOGGER.info("Order archiving enabled", "ageSec", ageSeconds, "intervalSec", intervalSeconds);
+    }
+
+    static synchronized void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+        directory = null;
+        segments.clear();
+    }
+
+    // Archives every order placed more than 'ageMillis' ago; returns how many moved
+    public static synchronized int sweep(long ageMillis) throws IOException {
+        if (directory == null) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - ageMillis;
+        int moved = 0;
+        while (true) {
+            List<Order> batch = OrderResource.archivable(cutoff, MAX_ROWS);
+            int items = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                items += batch.get(i).lineCount();
+                if (items > MAX_ITEMS) {
+                    batch = batch.subList(0, i);
+                    break;
+                }
+            }
+            if (batch.isEmpty()) {
+                return moved;
+            }
+            Segment segment = Segment.write(directory, batch);
+            segments.put(segment.firstId, segment);
+            // Readers find each order in the archive before it leaves the heap
+            OrderResource.evict(batch);
+            moved += batch.size();
+        }
+    }
+
+    private static void sweepQuietly(long ageMillis) {
+        try {
+            long started = System.nanoTime();
+            int moved = sweep(ageMillis);
+            if (moved > 0) {
+                LOGGER.info("Orders archived", "count", moved,
+                    "ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warning("Order archiving failed", "error", e.toString());
+        }
+    }
+
+    public static boolean contains(int orderId) {
+        Segment segment = segmentOf(orderId);
+        return segment != null && segment.rowOf(orderId) >= 0;
+    }
+
+    // null when the order is not archived
+    public static Order find(int orderId) {
+        Segment segment = segmentOf(orderId);
+        if (segment == null) return null;
+        int row = segment.rowOf(orderId);
+        return row < 0 ? null : segment.order(row);
+    }
+
+    // Every archived order, ascending by id
+    static void forEachOrder(Consumer<Order> action) {
+        for (Segment segment : segments.values()) {
+            for (int row = 0; row < segment.rows; row++) {
+                action.accept(segment.order(row));
+            }
+        }
+    }
+
+    // Lazy cursors over the customer's archived orders from (fromMillis, fromId)
+    // on, each in (orderDate, id) order, one per segment that has any; orders are
+    // only decoded as a cursor advances. Callers merge them.
+    public static List<Iterator<Order>> historyOf(int customerId, long fromMillis, int fromId) {
+        List<Iterator<Order>> cursors = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment.lastDate < fromMillis) continue;
+            Iterator<Order> cursor = segment.historyOf(customerId, fromMillis, fromId);
+            if (cursor.hasNext()) cursors.add(cursor);
+        }
+        return cursors;
+    }
+
+    private static Segment segmentOf(int orderId) {
+        Map.Entry<Integer, Segment> entry = segments.floorEntry(orderId);
+        return entry == null || orderId > entry.getValue().lastId ? null : entry.getValue();
+    }
+
+    private static final class Segment {
+        final MappedByteBuffer data;
+        final int rows;
+        final int firstId;
+        final int lastId;
+        // Latest order date in the segment, to skip it when paging past that
+        final long lastDate;
+        // Column offsets in bytes
+        final int ids;
+        final int customers;
+        final int dates;
+        final int byCustomer;
+        final int itemStart;
+        final int bookIds;
+        final int quantities;
+        final int unitCents;
+        final int authorIds;
+
+        private Segment(MappedByteBuffer data) throws IOException {
+            this.data = data;
+            int magic = data.capacity() < HEADER_BYTES ? 0 : data.getInt(0);
+            if (magic != MAGIC) {
+                throw new IOException("Not an order archive segment");
+            }
+            rows = data.getInt(4);
+            int items = data.getInt(8);
+            ids = HEADER_BYTES;
+            customers = ids + 4 * rows;
+            dates = customers + 4 * rows;
+            byCustomer = dates + 8 * rows;
+            itemStart = byCustomer + 4 * rows;
+            bookIds = itemStart + 4 * (rows + 1);
+            quantities = bookIds + 4 * items;
+            unitCents = quantities + 4 * items;
+            authorIds = unitCents + 4 * items;
+            int end = authorIds + 4 * items;
+            if (rows <= 0 || data.capacity() != end) {
+                throw new IOException("Order archive segment is truncated");
+            }
+            firstId = id(0);
+            lastId = id(rows - 1);
+            long latest = Long.MIN_VALUE;
+            for (int row = 0; row < rows; row++) latest = Math.max(latest, date(row));
+            lastDate = latest;
+        }
+
+        static Segment map(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                data.order(ByteOrder.LITTLE_ENDIAN);
+                try {
+                    return new Segment(data);
+                } catch (IOException e) {
+                    throw new IOException(e.getMessage() + ": " + file, e);
+                }
+            }
+        }
+
+        // Writes 'batch' (ascending ids) to a new segment file, fsyncs it and maps it
+        static Segment write(Path dir, List<Order> batch) throws IOException {
+            int rows = batch.size();
+            int items = 0;
+            for (Order order : batch) items += order.lineCount();
+            long size = HEADER_BYTES + 20L * rows + 4L * (rows + 1) + 16L * items;
+
+            Path target = dir.resolve(String.format("orders-%010d.seg", batch.get(0).getId()));
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                out.order(ByteOrder.LITTLE_ENDIAN);
+                out.putInt(MAGIC).putInt(rows).putInt(items).putInt(0);
+                for (Order order : batch) out.putInt(order.getId());
+                for (Order order : batch) out.putInt(order.getCustomerId());
+                for (Order order : batch) out.putLong(order.getOrderDate().getTime());
+                for (int row : rowsByCustomer(batch)) out.putInt(row);
+                int offset = 0;
+                for (Order order : batch) {
+                    out.putInt(offset);
+                    offset += order.lineCount();
+                }
+                out.putInt(offset);
+                for (Order order : batch) {
+                    for (int i = 0; i < order.lineCount(); i++) out.putInt(order.bookIdAt(i));
+                }
+                for (Order order : batch) {
+                    for (int i = 0; i < order.lineCount(); i++) out.putInt(order.quantityAt(i));
+                }
+                for (Order order : batch) {
+                    for (int i = 0; i < order.lineCount(); i++) out.putInt(order.unitPriceCentsAt(i));
+                }
+                for (Order order : batch) {
+                    for (int i = 0; i < order.lineCount(); i++) out.putInt(order.authorIdAt(i));
+                }
+                out.force();
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return map(target);
+        }
+
+        // Sorting (customer << 32 | row) orders rows by customer and keeps each
+        // customer's rows in id order
+        private static int[] rowsByCustomer(List<Order> batch) {
+            long[] keys = new long[batch.size()];
+            for (int row = 0; row < keys.length; row++) {
+                keys[row] = ((long) batch.get(row).getCustomerId() << 32) | row;
+            }
+            Arrays.sort(keys);
+            int[] rows = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) rows[i] = (int) keys[i];
+            return rows;
+        }
+
+        int id(int row) { return data.getInt(ids + 4 * row); }
+
+        int customer(int row) { return data.getInt(customers + 4 * row); }
+
+        long date(int row) { return data.getLong(dates + 8 * row); }
+
+        int rowOf(int orderId) {
+            int low = 0;
+            int high = rows - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int id = id(mid);
+                if (id < orderId) low = mid + 1;
+                else if (id > orderId) high = mid - 1;
+                else return mid;
+            }
+            return -1;
+        }
+
+        Iterator<Order> historyOf(int customerId, long fromMillis, int fromId) {
+            // Lower bound of customerId in the byCustomer permutation
+            int low = 0;
+            int high = rows;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (customer(data.getInt(byCustomer + 4 * mid)) < customerId) low = mid + 1;
+                else high = mid;
+            }
+            int end = low;
+            while (end < rows && customer(data.getInt(byCustomer + 4 * end)) == customerId) end++;
+            int[] history = new int[end - low];
+            for (int i = 0; i < history.length; i++) history[i] = data.getInt(byCustomer + 4 * (low + i));
+
+            // Rows are in id order, which is date order unless the clock stepped back
+            // between two of the customer's checkouts
+            Comparator<Integer> byDate = Comparator.<Integer>comparingLong(this::date).thenComparingInt(row -> row);
+            for (int i = 1; i < history.length; i++) {
+                if (byDate.compare(history[i - 1], history[i]) > 0) {
+                    history = Arrays.stream(history).boxed().sorted(byDate).mapToInt(Integer::intValue).toArray();
+                    break;
+                }
+            }
+
+            // First row at or after (fromMillis, fromId)
+            low = 0;
+            high = history.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                long date = date(history[mid]);
+                if (date < fromMillis || (date == fromMillis && id(history[mid]) < fromId)) low = mid + 1;
+                else high = mid;
+            }
+            int[] sorted = history;
+            int first = low;
+            return new Iterator<Order>() {
+                int next = first;
+
+                @Override
+                public boolean hasNext() { return next < sorted.length; }
+
+                @Override
+                public Order next() {
+                    if (next >= sorted.length) throw new NoSuchElementException();
+                    return order(sorted[next++]);
+                }
+            };
+        }
+
+        Order order(int row) {
+            int start = data.getInt(itemStart + 4 * row);
+            int end = data.getInt(itemStart + 4 * (row + 1));
+            int[] books = new int[end - start];
+            int[] quantity = new int[end - start];
+            int[] cents = new int[end - start];
+            int[] authors = new int[end - start];
+            for (int i = start; i < end; i++) {
+                books[i - start] = data.getInt(bookIds + 4 * i);
+                quantity[i - start] = data.getInt(quantities + 4 * i);
+                cents[i - start] = data.getInt(unitCents + 4 * i);
+                authors[i - start] = data.getInt(authorIds + 4 * i);
+            }
+            Order order = new Order();
+            order.setId(id(row));
+            order.setCustomerId(customer(row));
+            order.setOrderDate(new Date(date(row)));
+            order.setItems(SortedIntIntMap.ofSorted(books, quantity));
+            order.setUnitPriceCents(cents);
+            order.setAuthorIds(authors);
+            return order;
+        }
+    }
+}
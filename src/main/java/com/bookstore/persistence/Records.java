@@ -0,0 +1,234 @@
+package com.bookstore.persistence;
+
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.models.Customer;
+import com.bookstore.models.IntIntMap;
+import com.bookstore.models.Order;
+import com.bookstore.resources.AuthorResource;
+import com.bookstore.resources.BookResource;
+import com.bookstore.resources.CustomerResource;
+import com.bookstore.resources.OrderResource;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+
+// Binary encoding of journal and snapshot records. Every record carries the full
+// new state of one entity (or a delete; a checkout carries the order and its
+// emptied cart), so replaying a record twice is harmless;
+// stock records additionally carry a version and only ever move forward.
+final class Records {
+    static final byte BOOK = 1;
+    static final byte BOOK_DELETED = 2;
+    static final byte AUTHOR = 3;
+    static final byte AUTHOR_DELETED = 4;
+    static final byte CUSTOMER = 5;
+    static final byte CUSTOMER_DELETED = 6;
+    static final byte CART = 7;
+    static final byte ORDER = 8;
+    static final byte STOCK = 9;
+    // An ORDER that also empties the customer's cart; journaled by checkout
+    static final byte CHECKOUT = 10;
+
+    private Records() {}
+
+    static byte[] book(Book book) {
+        Encoder out = new Encoder(BOOK);
+        out.writeInt(book.getId());
+        out.writeString(book.getTitle());
+        out.writeInt(book.getAuthorId());
+        out.writeString(book.getIsbn());
+        out.writeInt(book.getPublicationYear());
+        out.writeDouble(book.getPrice());
+        out.writeLong(book.stockState());
+        return out.toByteArray();
+    }
+
+    static byte[] stock(Book book) {
+        Encoder out = new Encoder(STOCK);
+        out.writeInt(book.getId());
+        out.writeLong(book.stockState());
+        return out.toByteArray();
+    }
+
+    static byte[] author(Author author) {
+        Encoder out = new Encoder(AUTHOR);
+        out.writeInt(author.getId());
+        out.writeString(author.getFirstName());
+        out.writeString(author.getLastName());
+        out.writeString(author.getBiography());
+        return out.toByteArray();
+    }
+
+    static byte[] customer(Customer customer) {
+        Encoder out = new Encoder(CUSTOMER);
+        out.writeInt(customer.getId());
+        out.writeString(customer.getFirstName());
+        out.writeString(customer.getLastName());
+        out.writeString(customer.getEmail());
+        out.writeString(customer.getPassword());
+        return out.toByteArray();
+    }
+
+    static byte[] cart(Integer customerId, Map<Integer, Integer> items) {
+        Encoder out = new Encoder(CART);
+        out.writeInt(customerId);
+        out.writeItems(items);
+        return out.toByteArray();
+    }
+
+    static byte[] order(Order order) {
+        return order(ORDER, order);
+    }
+
+    static byte[] checkout(Order order) {
+        return order(CHECKOUT, order);
+    }
+
+    private static byte[] order(byte type, Order order) {
+        Encoder out = new Encoder(type);
+        out.writeInt(order.getId());
+        out.writeInt(order.getCustomerId());
+        out.writeLong(order.getOrderDate().getTime());
+        out.writeItems(order.getItems());
+        // Unit prices, then author ids, follow the items, one per line in the same order
+        for (int i = 0; i < order.lineCount(); i++) {
+            out.writeInt(order.unitPriceCentsAt(i));
+        }
+        for (int i = 0; i < order.lineCount(); i++) {
+            out.writeInt(order.authorIdAt(i));
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] deleted(byte type, Integer id) {
+        Encoder out = new Encoder(type);
+        out.writeInt(id);
+        return out.toByteArray();
+    }
+
+    // Applies one decoded record to the in-memory stores
+    static void apply(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case BOOK: {
+                Book book = new Book(in.getInt(), readString(in), in.getInt(), readString(in),
+                    in.getInt(), in.getDouble(), null);
+                book.restoreStockState(in.getLong());
+                BookResource.restore(book);
+                break;
+            }
+            case STOCK: {
+                Book book = BookResource.books.get(in.getInt());
+                long state = in.getLong();
+                if (book != null) book.restoreStockState(state);
+                break;
+            }
+            case BOOK_DELETED:
+                BookResource.restoreDelete(in.getInt());
+                break;
+            case AUTHOR:
+                AuthorResource.restore(new Author(in.getInt(), readString(in), readString(in), readString(in)));
+                break;
+            case AUTHOR_DELETED:
+                AuthorResource.restoreDelete(in.getInt());
+                break;
+            case CUSTOMER:
+                CustomerResource.restore(new Customer(in.getInt(), readString(in), readString(in),
+                    readString(in), readString(in)));
+                break;
+            case CUSTOMER_DELETED:
+                CustomerResource.restoreDelete(in.getInt());
+                break;
+            case CART:
+                CustomerResource.restoreCart(in.getInt(), readItems(in));
+                break;
+            case ORDER:
+            case CHECKOUT: {
+                Order order = new Order();
+                order.setId(in.getInt());
+                order.setCustomerId(in.getInt());
+                order.setOrderDate(new Date(in.getLong()));
+                order.setItems(readItems(in));
+                int[] cents = new int[order.lineCount()];
+                for (int i = 0; i < cents.length; i++) cents[i] = in.getInt();
+                order.setUnitPriceCents(cents);
+                int[] authors = new int[order.lineCount()];
+                for (int i = 0; i < authors.length; i++) authors[i] = in.getInt();
+                order.setAuthorIds(authors);
+                OrderResource.restore(order);
+                if (type == CHECKOUT) {
+                    CustomerResource.restoreCart(order.getCustomerId(), new IntIntMap(0));
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Map<Integer, Integer> readItems(ByteBuffer in) {
+        int size = in.getInt();
+        IntIntMap items = new IntIntMap(size);
+        for (int i = 0; i < size; i++) {
+            items.putInt(in.getInt(), in.getInt());
+        }
+        return items;
+    }
+
+    private static final class Encoder {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        Encoder(byte type) {
+            bytes.write(type);
+        }
+
+        void writeInt(int value) {
+            try { out.writeInt(value); } catch (IOException e) { throw new UncheckedIOException(e); }
+        }
+
+        void writeLong(long value) {
+            try { out.writeLong(value); } catch (IOException e) { throw new UncheckedIOException(e); }
+        }
+
+        void writeDouble(double value) {
+            try { out.writeDouble(value); } catch (IOException e) { throw new UncheckedIOException(e); }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(encoded.length);
+            bytes.write(encoded, 0, encoded.length);
+        }
+
+        void writeItems(Map<Integer, Integer> items) {
+            writeInt(items.size());
+            items.forEach((bookId, quantity) -> {
+                writeInt(bookId);
+                writeInt(quantity);
+            });
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.bookstore.persistence;
+
+import com.bookstore.models.Book;
+import com.bookstore.models.Customer;
+import com.bookstore.models.Order;
+import com.bookstore.resources.AuthorResource;
+import com.bookstore.resources.BookResource;
+import com.bookstore.resources.CustomerResource;
+import com.bookstore.resources.OrderResource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Point-in-time copy of every store, written and read through memory-mapped
+// windows. The snapshot is fuzzy (taken while requests keep running), which is
+// safe because recovery replays the journal from the segment recorded in the
+// header and every record is idempotent.
+// Layout: [int MAGIC][long firstSegmentToReplay] then journal-style frames, then an int 0.
+final class Snapshot {
+    private static final int MAGIC = 0x424B5331; // "BKS1"
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    private Snapshot() {}
+
+    static Path path(Path directory, long segment) {
+        return directory.resolve(String.format("snapshot-%010d.snap", segment));
+    }
+
+    static void write(Path directory, long segment) throws IOException {
+        Path target = path(directory, segment);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedWriter out = new MappedWriter(channel);
+            out.header(segment);
+            AuthorResource.authors.values().forEach(author -> out.frame(Records.author(author)));
+            for (Book book : BookResource.books.values()) {
+                out.frame(Records.book(book));
+            }
+            for (Customer customer : CustomerResource.customers.values()) {
+                out.frame(Records.customer(customer));
+                out.frame(Records.cart(customer.getId(), customer.getCart().getItems()));
+            }
+            for (Order order : OrderResource.allOrders()) {
+                out.frame(Records.order(order));
+            }
+            out.finish();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Loads the snapshot into the stores and returns the first journal segment to replay
+    static long load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedReader in = new MappedReader(channel);
+            ByteBuffer header = in.need(Integer.BYTES + Long.BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot: " + file);
+            }
+            long segment = header.getLong();
+            while (true) {
+                int length = in.need(Integer.BYTES).getInt();
+                if (length == 0) {
+                    return segment;
+                }
+                // crc is not checked: a snapshot is only renamed into place after a full fsync
+                ByteBuffer frame = in.need(Integer.BYTES + length);
+                frame.getInt();
+                int end = frame.position() + length;
+                Records.apply(frame.slice().limit(length));
+                frame.position(end);
+            }
+        }
+    }
+
+    // Reads through successive read-only windows so snapshots may exceed 2 GB
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, WINDOW_BYTES));
+        }
+
+        ByteBuffer need(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                windowStart += window.position();
+                if (size - windowStart < bytes) {
+                    throw new IOException("Snapshot is truncated");
+                }
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                    Math.min(size - windowStart, Math.max(WINDOW_BYTES, bytes)));
+            }
+            return window;
+        }
+    }
+
+    // Appends frames through successive mapped windows, growing the file as it goes
+    private static final class MappedWriter {
+        private final FileChannel channel;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedWriter(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.window = channel.map(FileChannel.MapMode.READ_WRITE, 0, WINDOW_BYTES);
+        }
+
+        void header(long segment) {
+            window.putInt(MAGIC).putLong(segment);
+        }
+
+        void frame(byte[] record) {
+            ensure(Journal.FRAME_HEADER + record.length + Integer.BYTES);
+            window.putInt(record.length).putInt(0).put(record);
+        }
+
+        void finish() throws IOException {
+            window.putInt(0);
+            window.force();
+            long end = windowStart + window.position();
+            window = null;
+            channel.truncate(end);
+        }
+
+        private void ensure(int bytes) {
+            if (window.remaining() >= bytes) {
+                return;
+            }
+            try {
+                window.force();
+                windowStart += window.position();
+                window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(WINDOW_BYTES, bytes));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.bookstore.persistence;
+
+import com.bookstore.analytics.SalesAnalytics;
+import com.bookstore.exceptions.NotDurableException;
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.models.Author;
+import com.bookstore.models.Book;
+import com.bookstore.models.Customer;
+import com.bookstore.models.Order;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Durability for the in-memory stores: a write-ahead journal of every mutation
+// plus periodic snapshots. Disabled (every hook is a no-op) unless a data
+// directory is configured:
+//   -Dbookstore.data.dir=/var/lib/bookstore
+//   -Dbookstore.journal.fsync=interval      always | interval | never
+//   -Dbookstore.journal.fsyncIntervalMs=100
+// Under 'always' a mutating request is answered only after its records are on
+// disk (awaitDurable), sharing one fsync with everything written alongside.
+// 'interval' and 'never' are best effort: requests do not wait, and a crash
+// loses what was acknowledged since the last fsync (up to fsyncIntervalMs).
+//   -Dbookstore.snapshot.intervalSec=300    0 disables periodic snapshots
+// Orders older than -Dbookstore.archive.ageSec move to the OrderArchive.
+public final class Store {
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(Store.class);
+    private static final Pattern SEGMENT = Pattern.compile("journal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.snap");
+    private static final int MAX_RECORD_BYTES = 64 << 20;
+
+    private static volatile Journal journal;
+    private static Path directory;
+    private static ScheduledExecutorService snapshotter;
+    // Closes the journal if the JVM exits without the application being shut down
+    private static Thread shutdownHook;
+
+    private Store() {}
+
+    public static synchronized void start() {
+        String dir = System.getProperty("bookstore.data.dir");
+        if (dir == null || dir.isEmpty()) {
+            LOGGER.info("Persistence disabled, set bookstore.data.dir to enable");
+            return;
+        }
+        try {
+            start(Paths.get(dir),
+                Journal.FsyncPolicy.valueOf(System.getProperty("bookstore.journal.fsync", "interval").toUpperCase(Locale.ROOT)),
+                Long.getLong("bookstore.journal.fsyncIntervalMs", 100L),
+                Long.getLong("bookstore.snapshot.intervalSec", 300L));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open data directory " + dir, e);
+        }
+    }
+
+    // Recovers the stores from 'dir' and starts journaling into it
+    static synchronized void start(Path dir, Journal.FsyncPolicy fsync, long fsyncIntervalMillis,
+                                   long snapshotIntervalSeconds) throws IOException {
+        if (journal != null) {
+            return;
+        }
+        long started = System.nanoTime();
+        Files.createDirectories(dir);
+
+        OrderArchive.open(dir.resolve("archive"));
+        OptionalLong latestSnapshot = numbered(dir, SNAPSHOT).stream().mapToLong(Long::longValue).max();
+        long replayFrom = 0;
+        if (latestSnapshot.isPresent()) {
+            replayFrom = Snapshot.load(Snapshot.path(dir, latestSnapshot.getAsLong()));
+        }
+        long lastSegment = replayFrom;
+        for (long segment : numbered(dir, SEGMENT)) {
+            if (segment >= replayFrom) {
+                replay(Journal.segmentPath(dir, segment));
+                lastSegment = segment;
+            }
+        }
+
+        // Archived orders are not replayed, so their sales are counted here
+        OrderArchive.forEachOrder(SalesAnalytics::record);
+
+        directory = dir;
+        shutdownHook = new Thread(Store::stop, "bookstore-journal-close");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        // Never append to a segment that may end in a torn frame
+        journal = new Journal(dir, lastSegment + 1, fsync, fsyncIntervalMillis);
+        if (snapshotIntervalSeconds > 0) {
+            snapshotter = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "bookstore-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotter.scheduleWithFixedDelay(Store::snapshotQuietly,
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+        OrderArchive.startSweeping();
+        LOGGER.info("Persistence started", "dir", dir.toString(), "fsync", fsync,
+            "recoveryMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    // Closes the journal and ends the snapshot and archive threads. Called when the
+    // application shuts down; the JVM hook is removed so it does not pin a
+    // redeployed WAR's class loader
+    public static synchronized void stop() {
+        if (journal == null) {
+            return;
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down; the hook finds the store stopped
+            }
+        }
+        shutdownHook = null;
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+            snapshotter = null;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            LOGGER.warning("Journal close failed", "error", e.toString());
+        }
+        journal = null;
+        OrderArchive.close();
+    }
+
+    // Blocks until every mutation recorded so far has reached the journal
+    public static void flush() throws IOException {
+        Journal j = journal;
+        if (j != null) j.sync();
+    }
+
+    // Rotates the journal, writes a snapshot and drops everything it supersedes
+    public static synchronized void snapshot() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        long segment = journal.rotate();
+        Snapshot.write(directory, segment);
+        for (long old : numbered(directory, SEGMENT)) {
+            if (old < segment) Files.deleteIfExists(Journal.segmentPath(directory, old));
+        }
+        for (long old : numbered(directory, SNAPSHOT)) {
+            if (old < segment) Files.deleteIfExists(Snapshot.path(directory, old));
+        }
+    }
+
+    // Under fsync=always, blocks until every record appended so far, the caller's
+    // included, is on disk. Mutating resources call it after releasing their locks
+    // and before answering; under the other policies it returns at once.
+    public static void awaitDurable() {
+        Journal j = journal;
+        if (j == null || !j.syncsEveryCommit()) {
+            return;
+        }
+        try {
+            j.barrier().await();
+        } catch (IOException e) {
+            LOGGER.warning("Change not journaled", "error", e.toString());
+            throw new NotDurableException("The change was applied but could not be written to the journal");
+        }
+    }
+
+    // Mutation hooks, called by the resources after the in-memory change
+    public static void bookSaved(Book book) {
+        Journal j = journal;
+        if (j != null) j.append(Records.book(book));
+    }
+
+    public static void bookDeleted(Integer id) {
+        Journal j = journal;
+        if (j != null) j.append(Records.deleted(Records.BOOK_DELETED, id));
+    }
+
+    public static void stockChanged(Book book) {
+        Journal j = journal;
+        if (j != null) j.append(Records.stock(book));
+    }
+
+    public static void authorSaved(Author author) {
+        Journal j = journal;
+        if (j != null) j.append(Records.author(author));
+    }
+
+    public static void authorDeleted(Integer id) {
+        Journal j = journal;
+        if (j != null) j.append(Records.deleted(Records.AUTHOR_DELETED, id));
+    }
+
+    public static void customerSaved(Customer customer) {
+        Journal j = journal;
+        if (j != null) j.append(Records.customer(customer));
+    }
+
+    public static void customerDeleted(Integer id) {
+        Journal j = journal;
+        if (j != null) j.append(Records.deleted(Records.CUSTOMER_DELETED, id));
+    }
+
+    public static void cartSaved(Customer customer) {
+        Journal j = journal;
+        if (j != null) j.append(Records.cart(customer.getId(), customer.getCart().getItems()));
+    }
+
+    // The placed order, which also empties its customer's cart on replay
+    public static void checkedOut(Order order) {
+        Journal j = journal;
+        if (j != null) j.append(Records.checkout(order));
+    }
+
+    private static void snapshotQuietly() {
+        try {
+            long started = System.nanoTime();
+            snapshot();
+            LOGGER.info("Snapshot written", "ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warning("Snapshot failed", "error", e.toString());
+        }
+    }
+
+    // Replays one segment, stopping at the first torn or corrupt frame
+    private static void replay(Path segment) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream file = Files.newInputStream(segment);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            while (true) {
+                byte[] payload;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        return;
+                    }
+                    payload = new byte[length];
+                    checksum = in.readInt();
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    return;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    LOGGER.warning("Corrupt journal frame, ignoring rest of segment", "segment", segment.toString());
+                    return;
+                }
+                Records.apply(ByteBuffer.wrap(payload));
+            }
+        }
+    }
+
+    private static List<Long> numbered(Path dir, Pattern pattern) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> pattern.matcher(file.getFileName().toString()))
+                .filter(Matcher::matches)
+                .map(match -> Long.valueOf(match.group(1)))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.bookstore.resources;
+
+import com.bookstore.analytics.SalesAnalytics;
+import com.bookstore.exceptions.AuthorNotFoundException;
+import com.bookstore.exceptions.InvalidInputException;
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.models.Book;
+import javax.ws.rs.*;
+import javax.ws.rs.core.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.time.Instant;
+
+// Sales reports, read from the aggregates SalesAnalytics keeps up to date at
+// checkout; no endpoint here scans orders. Revenue is in the store currency,
+// from the unit prices captured on each order.
+@Path("/analytics")
+@Produces(MediaType.APPLICATION_JSON)
+public class AnalyticsResource {
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(AnalyticsResource.class);
+    private static final int DEFAULT_TOP = 10;
+    private static final long DAY_MILLIS = 24 * SalesAnalytics.HOUR_MILLIS;
+
+    // GET /analytics/books/top?limit=
+    @GET
+    @Path("/books/top")
+    public Response getTopBooks(@QueryParam("limit") Integer limit) {
+        LOGGER.info("[GET /analytics/books/top] Fetching best sellers", "limit", limit);
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (int bookId : SalesAnalytics.topBooks(topSize(limit))) {
+            Book book = BookResource.books.get(bookId);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("bookId", bookId);
+            if (book != null) row.put("title", book.getTitle());
+            SalesAnalytics.Totals totals = SalesAnalytics.book(bookId);
+            putSums(row, totals.orders(), totals.units(), totals.revenueCents());
+            top.add(row);
+        }
+        return Response.ok(top).build();
+    }
+
+    // GET /analytics/authors/top?limit=
+    @GET
+    @Path("/authors/top")
+    public Response getTopAuthors(@QueryParam("limit") Integer limit) {
+        LOGGER.info("[GET /analytics/authors/top] Fetching top authors by revenue", "limit", limit);
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (int authorId : SalesAnalytics.topAuthors(topSize(limit))) {
+            top.add(authorSales(authorId, SalesAnalytics.author(authorId)));
+        }
+        return Response.ok(top).build();
+    }
+
+    // GET /analytics/authors/{authorId}
+    @GET
+    @Path("/authors/{authorId}")
+    public Response getAuthorSales(@PathParam("authorId") Integer authorId) {
+        LOGGER.info("[GET /analytics/authors/{authorId}] Fetching author sales", "authorId", authorId);
+        SalesAnalytics.Totals totals = SalesAnalytics.author(authorId);
+        if (totals == null && !AuthorResource.authors.containsKey(authorId)) {
+            throw new AuthorNotFoundException("Author with ID " + authorId + " does not exist");
+        }
+        return Response.ok(authorSales(authorId, totals)).build();
+    }
+
+    // GET /analytics/sales?bucket=hour|day&from=&to=
+    // Buckets are UTC and only listed when something sold in them
+    @GET
+    @Path("/sales")
+    public Response getSales(
+        @QueryParam("bucket") @DefaultValue("day") String bucket,
+        @QueryParam("from") String from,
+        @QueryParam("to") String to
+    ) {
+        LOGGER.info("[GET /analytics/sales] Fetching sales", "bucket", bucket, "from", from, "to", to);
+        long width;
+        if ("hour".equals(bucket)) {
+            width = SalesAnalytics.HOUR_MILLIS;
+        } else if ("day".equals(bucket)) {
+            width = DAY_MILLIS;
+        } else {
+            throw new InvalidInputException("Bucket must be 'hour' or 'day'");
+        }
+        long fromMillis = from != null ? OrderResource.parseDate("from", from).getTime() : Long.MIN_VALUE;
+        long toMillis = to != null ? OrderResource.parseDate("to", to).getTime() : Long.MAX_VALUE;
+
+        // Hourly aggregates, rolled up into wider buckets on the way out
+        List<Map<String, Object>> sales = new ArrayList<>();
+        Map<String, Object> current = null;
+        long currentStart = 0;
+        long orders = 0, units = 0, revenueCents = 0;
+        for (Map.Entry<Long, SalesAnalytics.Totals> hour : SalesAnalytics.hours(fromMillis, toMillis).entrySet()) {
+            long start = Math.floorDiv(hour.getKey(), width) * width;
+            if (current == null || start != currentStart) {
+                if (current != null) putSums(current, orders, units, revenueCents);
+                current = new LinkedHashMap<>();
+                current.put("start", Instant.ofEpochMilli(start).toString());
+                sales.add(current);
+                currentStart = start;
+                orders = units = revenueCents = 0;
+            }
+            SalesAnalytics.Totals totals = hour.getValue();
+            orders += totals.orders();
+            units += totals.units();
+            revenueCents += totals.revenueCents();
+        }
+        if (current != null) putSums(current, orders, units, revenueCents);
+        return Response.ok(sales).build();
+    }
+
+    // Helper methods
+    private static int topSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_TOP;
+        }
+        if (limit <= 0 || limit > SalesAnalytics.MAX_TOP) {
+            throw new InvalidInputException("Limit must be between 1 and " + SalesAnalytics.MAX_TOP);
+        }
+        return limit;
+    }
+
+    private static Map<String, Object> authorSales(int authorId, SalesAnalytics.Totals totals) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("authorId", authorId);
+        row.put("units", totals == null ? 0L : totals.units());
+        row.put("revenue", totals == null ? 0.0 : totals.revenueCents() / 100.0);
+        return row;
+    }
+
+    private static void putSums(Map<String, Object> row, long orders, long units, long revenueCents) {
+        row.put("orders", orders);
+        row.put("units", units);
+        row.put("revenue", revenueCents / 100.0);
+    }
+}
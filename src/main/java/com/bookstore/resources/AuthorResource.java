@@ -2,126 +2,202 @@ package com.bookstore.resources;
 
 import com.bookstore.models.Author;
 import com.bookstore.models.Book;
+import com.bookstore.encoding.CborProvider;
 import com.bookstore.exceptions.*;
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.persistence.Store;
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.logging.Logger;
+import java.util.concurrent.atomic.LongAdder;
 
 @Path("/authors")
 public class AuthorResource {
-    private static final Logger LOGGER = Logger.getLogger(AuthorResource.class.getName());
-    public static Map<Integer, Author> authors = new ConcurrentHashMap<>();
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(AuthorResource.class);
+    public static ConcurrentNavigableMap<Integer, Author> authors = new ConcurrentSkipListMap<>();
     private static final AtomicInteger idCounter = new AtomicInteger(1);
+    // Bumped on any author change; versions the collection ETags
+    private static final LongAdder authorsVersion = new LongAdder();
+
+    @Context
+    private Request httpRequest;
 
     // POST /authors
     @POST
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
     public Response createAuthor(Author author) {
-        LOGGER.info("[SERVER] [POST /authors] Creating author: " + author.getFirstName() + " " + author.getLastName());
+        LOGGER.info("[POST /authors] Creating author", "firstName", author.getFirstName(), "lastName", author.getLastName());
         
         // Validate required fields
         if (author.getFirstName() == null || author.getFirstName().trim().isEmpty() ||
             author.getLastName() == null || author.getLastName().trim().isEmpty()) {
-            LOGGER.warning("[SERVER] [POST /authors] Missing first/last name");
+            LOGGER.warning("[POST /authors] Missing first/last name");
             throw new InvalidInputException("First name and last name are required");
         }
 
         author.setId(idCounter.getAndIncrement());
-        authors.put(author.getId(), author);
-        LOGGER.info("[SERVER] [POST /authors] Author created. ID: " + author.getId());
+        // Locked from the moment the author is visible, so a PUT cannot be journaled before it
+        synchronized (author) {
+            authors.put(author.getId(), author);
+            Store.authorSaved(author);
+        }
+        authorsVersion.increment();
+        Store.awaitDurable();
+        LOGGER.info("[POST /authors] Author created", "id", author.getId());
         return Response.status(Response.Status.CREATED).entity(author).build();
     }
 
-    // GET /authors
+    // GET /authors?limit=&cursor=
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getAllAuthors() {
-        LOGGER.info("[SERVER] [GET /authors] Fetching all authors");
-        return Response.ok(new ArrayList<>(authors.values())).build();
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public Response getAllAuthors(
+        @QueryParam("limit") Integer limit,
+        @QueryParam("cursor") String cursor
+    ) {
+        LOGGER.info("[GET /authors] Fetching authors");
+        int pageSize = Pagination.pageSize(limit);
+        Integer after = Pagination.decodeCursor(cursor);
+        EntityTag tag = ETags.ofCollection("authors", authorsVersion.sum(), pageSize, after);
+        return ETags.ok(httpRequest, tag, () -> {
+            Iterator<Author> source = (after == null ? authors : authors.tailMap(after, false)).values().iterator();
+            return Pagination.page(source, pageSize, Author::getId);
+        });
+    }
+
+    // GET /authors/export?format=json|ndjson
+    @GET
+    @Path("/export")
+    @Produces({MediaType.APPLICATION_JSON, JsonStreaming.APPLICATION_NDJSON})
+    public Response exportAuthors(@QueryParam("format") String format) {
+        LOGGER.info("[GET /authors/export] Streaming authors");
+        return JsonStreaming.export(authors.values().iterator(), format);
     }
 
     // GET /authors/{id}
     @GET
     @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
     public Response getAuthorById(@PathParam("id") Integer id) {
-        LOGGER.info("[SERVER] [GET /authors/" + id + "] Fetching author");
+        LOGGER.info("[GET /authors/{id}] Fetching author", "id", id);
         Author author = authors.get(id);
         if (author == null) {
-            LOGGER.warning("[SERVER] [GET /authors/" + id + "] Author not found");
+            LOGGER.warning("[GET /authors/{id}] Author not found", "id", id);
             throw new AuthorNotFoundException("Author with ID " + id + " not found");
         }
-        return Response.ok(author).build();
+        return ETags.ok(httpRequest, ETags.of("author", id, author.version()), () -> Response.ok(author));
     }
 
     // PUT /authors/{id}
     @PUT
     @Path("/{id}")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
     public Response updateAuthor(@PathParam("id") Integer id, Author updatedAuthor) {
-        LOGGER.info("[SERVER] [PUT /authors/" + id + "] Updating author");
+        LOGGER.info("[PUT /authors/{id}] Updating author", "id", id);
         Author existingAuthor = authors.get(id);
         if (existingAuthor == null) {
-            LOGGER.warning("[SERVER] [PUT /authors/" + id + "] Author not found");
+            LOGGER.warning("[PUT /authors/{id}] Author not found", "id", id);
             throw new AuthorNotFoundException("Author with ID " + id + " not found");
         }
 
         // Validate required fields
         if (updatedAuthor.getFirstName() == null || updatedAuthor.getFirstName().trim().isEmpty() ||
             updatedAuthor.getLastName() == null || updatedAuthor.getLastName().trim().isEmpty()) {
-            LOGGER.warning("[SERVER] [PUT /authors/" + id + "] Missing first/last name");
+            LOGGER.warning("[PUT /authors/{id}] Missing first/last name", "id", id);
             throw new InvalidInputException("First name and last name are required");
         }
 
-        existingAuthor.setFirstName(updatedAuthor.getFirstName());
-        existingAuthor.setLastName(updatedAuthor.getLastName());
-        existingAuthor.setBiography(updatedAuthor.getBiography());
-        LOGGER.info("[SERVER] [PUT /authors/" + id + "] Author updated");
-        return Response.ok(existingAuthor).build();
+        // Optimistic concurrency: check If-Match and apply under the author's lock
+        synchronized (existingAuthor) {
+            Response failed = ETags.preconditionFailed(httpRequest, ETags.of("author", id, existingAuthor.version()));
+            if (failed != null) {
+                LOGGER.warning("[PUT /authors/{id}] Version mismatch", "id", id);
+                return failed;
+            }
+            // A concurrent delete may have won; journaling the update after it would resurrect the author
+            if (authors.get(id) != existingAuthor) {
+                LOGGER.warning("[PUT /authors/{id}] Author not found", "id", id);
+                throw new AuthorNotFoundException("Author with ID " + id + " not found");
+            }
+            existingAuthor.setFirstName(updatedAuthor.getFirstName());
+            existingAuthor.setLastName(updatedAuthor.getLastName());
+            existingAuthor.setBiography(updatedAuthor.getBiography());
+            existingAuthor.touch();
+            // Journaled under the lock so concurrent updates replay in the order they applied
+            Store.authorSaved(existingAuthor);
+        }
+        authorsVersion.increment();
+        Store.awaitDurable();
+        LOGGER.info("[PUT /authors/{id}] Author updated", "id", id);
+        return Response.ok(existingAuthor).tag(ETags.of("author", id, existingAuthor.version())).build();
     }
 
     // DELETE /authors/{id}
     @DELETE
     @Path("/{id}")
     public Response deleteAuthor(@PathParam("id") Integer id) {
-        LOGGER.info("[SERVER] [DELETE /authors/" + id + "] Deleting author");
+        LOGGER.info("[DELETE /authors/{id}] Deleting author", "id", id);
         if (!authors.containsKey(id)) {
-            LOGGER.warning("[SERVER] [DELETE /authors/" + id + "] Author not found");
+            LOGGER.warning("[DELETE /authors/{id}] Author not found", "id", id);
             throw new AuthorNotFoundException("Author with ID " + id + " not found");
         }
 
         // Check if author has books
-        boolean hasBooks = BookResource.books.values().stream()
-                .anyMatch(book -> book.getAuthorId().equals(id));
-        if (hasBooks) {
-            LOGGER.warning("[SERVER] [DELETE /authors/" + id + "] Author has books");
+        if (!BookResource.getBookIdsByAuthor(id).isEmpty()) {
+            LOGGER.warning("[DELETE /authors/{id}] Author has books", "id", id);
             throw new InvalidInputException("Author has existing books and cannot be deleted");
         }
 
-        authors.remove(id);
-        LOGGER.info("[SERVER] [DELETE /authors/" + id + "] Author deleted");
+        Author removed = authors.remove(id);
+        if (removed == null) {
+            LOGGER.warning("[DELETE /authors/{id}] Author not found", "id", id);
+            throw new AuthorNotFoundException("Author with ID " + id + " not found");
+        }
+        // Under the author's lock, so an update in flight is journaled before the delete
+        synchronized (removed) {
+            Store.authorDeleted(id);
+        }
+        authorsVersion.increment();
+        Store.awaitDurable();
+        LOGGER.info("[DELETE /authors/{id}] Author deleted", "id", id);
         return Response.ok().entity("Aurthor id " +id + " successfully deleted").type(MediaType.TEXT_PLAIN).build();
     }
 
     // GET /authors/{id}/books
     @GET
     @Path("/{id}/books")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
     public Response getBooksByAuthor(@PathParam("id") Integer id) {
-        LOGGER.info("[SERVER] [GET /authors/" + id + "/books] Fetching books");
+        LOGGER.info("[GET /authors/{id}/books] Fetching books", "id", id);
         if (!authors.containsKey(id)) {
-            LOGGER.warning("[SERVER] [GET /authors/" + id + "/books] Author not found");
+            LOGGER.warning("[GET /authors/{id}/books] Author not found", "id", id);
             throw new AuthorNotFoundException("Author with ID " + id + " not found");
         }
 
-        List<Book> books = BookResource.books.values().stream()
-                .filter(book -> book.getAuthorId().equals(id))
-                .toList();
-        return Response.ok(books).build();
+        EntityTag tag = ETags.ofCollection("author-books", BookResource.catalogVersion(), id);
+        return ETags.ok(httpRequest, tag, () -> {
+            List<Book> books = new ArrayList<>();
+            for (Integer bookId : BookResource.getBookIdsByAuthor(id)) {
+                Book book = BookResource.books.get(bookId);
+                if (book != null) {
+                    books.add(book);
+                }
+            }
+            return Response.ok(books);
+        });
+    }
+
+    // Recovery: upsert or remove a journaled author
+    public static void restore(Author author) {
+        authors.put(author.getId(), author);
+        idCounter.accumulateAndGet(author.getId() + 1, Math::max);
+    }
+
+    public static void restoreDelete(Integer id) {
+        authors.remove(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,254 @@
+package com.bookstore.resources;
+
+import com.bookstore.exceptions.AuthorNotFoundException;
+import com.bookstore.exceptions.DuplicateIsbnException;
+import com.bookstore.exceptions.InvalidInputException;
+import com.bookstore.models.Book;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonParser;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+// Bulk import behind POST /books/batch. Records are read from the request
+// stream in chunks; each chunk is parsed (NDJSON) and validated in parallel on the fork-join pool,
+// then takes one contiguous id block and is inserted in id order (which keeps
+// the title index on its append-only path). A bad record only fails itself.
+final class BookBatch {
+    static final int CHUNK_SIZE = 4096;
+    // Json.createXxx() looks the provider up through ServiceLoader on every call
+    private static final JsonProvider JSON = JsonProvider.provider();
+
+    private final int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+    private final JsonObject[] records = new JsonObject[CHUNK_SIZE];
+    private final String[] lines = new String[CHUNK_SIZE]; // NDJSON records, parsed during validation
+    private final String[] problems = new String[CHUNK_SIZE];
+    private final Book[] books = new Book[CHUNK_SIZE];
+    private int buffered;
+    private int nextIndex;
+
+    private final List<Integer> ids = new ArrayList<>();
+    private final List<Map<String, Object>> errors = new ArrayList<>();
+
+    private BookBatch() {}
+
+    // Body: one JSON array of book objects
+    static BookBatch fromJsonArray(InputStream body) {
+        BookBatch batch = new BookBatch();
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (!startsArray(parser)) {
+                throw new InvalidInputException("Expected a JSON array of books");
+            }
+            while (true) {
+                JsonParser.Event event;
+                JsonObject record = null;
+                try {
+                    event = parser.next();
+                    if (event == JsonParser.Event.START_OBJECT) {
+                        record = parser.getObject();
+                    } else if (event == JsonParser.Event.START_ARRAY) {
+                        parser.skipArray();
+                    }
+                } catch (JsonException | IllegalStateException | NoSuchElementException e) {
+                    // The array cannot be resynchronized after a syntax error: keep what was read
+                    batch.malformed("Malformed JSON, import stopped at this record");
+                    break;
+                }
+                if (event == JsonParser.Event.END_ARRAY) {
+                    break;
+                }
+                if (record != null) {
+                    batch.accept(record);
+                } else {
+                    batch.malformed("Record must be a JSON object");
+                }
+            }
+        }
+        batch.flush();
+        return batch;
+    }
+
+    // Body: one book object per line, blank lines ignored
+    static BookBatch fromNdjson(InputStream body) {
+        BookBatch batch = new BookBatch();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) batch.acceptLine(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        batch.flush();
+        return batch;
+    }
+
+    private static boolean startsArray(JsonParser parser) {
+        try {
+            return parser.hasNext() && parser.next() == JsonParser.Event.START_ARRAY;
+        } catch (JsonException e) {
+            return false;
+        }
+    }
+
+    int created() { return ids.size(); }
+
+    int failed() { return errors.size(); }
+
+    // {"created": n, "failed": m, "ids": [...], "errors": [{"index": i, "message": "..."}]}
+    Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("created", ids.size());
+        summary.put("failed", errors.size());
+        summary.put("ids", ids);
+        summary.put("errors", errors);
+        return summary;
+    }
+
+    private void accept(JsonObject record) {
+        records[buffered++] = record;
+        if (buffered == CHUNK_SIZE) flush();
+    }
+
+    private void acceptLine(String line) {
+        lines[buffered++] = line;
+        if (buffered == CHUNK_SIZE) flush();
+    }
+
+    private void malformed(String message) {
+        problems[buffered++] = message;
+        if (buffered == CHUNK_SIZE) flush();
+    }
+
+    private void flush() {
+        int size = buffered;
+        if (size == 0) return;
+
+        IntStream.range(0, size).parallel().forEach(this::validate);
+
+        int valid = 0;
+        for (int i = 0; i < size; i++) {
+            if (problems[i] == null) valid++;
+        }
+        int id = BookResource.reserveIds(valid);
+        for (int i = 0; i < size; i++) {
+            if (problems[i] == null) {
+                // ISBN uniqueness is settled here, in input order; a duplicate leaves an id gap
+                books[i].setId(id++);
+                try {
+                    BookResource.insert(books[i]);
+                    ids.add(books[i].getId());
+                } catch (DuplicateIsbnException e) {
+                    problems[i] = e.getMessage();
+                }
+            }
+            if (problems[i] != null) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("index", nextIndex + i);
+                error.put("message", problems[i]);
+                errors.add(error);
+            }
+        }
+        if (valid > 0) BookResource.catalogChanged();
+
+        nextIndex += size;
+        buffered = 0;
+        Arrays.fill(records, 0, size, null);
+        Arrays.fill(lines, 0, size, null);
+        Arrays.fill(problems, 0, size, null);
+        Arrays.fill(books, 0, size, null);
+    }
+
+    // Same rules as POST /books; runs on fork-join workers, one slot per record
+    private void validate(int i) {
+        if (problems[i] != null) return;
+        try {
+            Book book = toBook(records[i] != null ? records[i] : parseLine(lines[i]));
+            BookResource.validateBook(book);
+            if (book.getPublicationYear() == null) {
+                throw new InvalidInputException("Publication year is required");
+            }
+            if (book.getPublicationYear() > currentYear) {
+                throw new InvalidInputException("Publication year cannot be in the future");
+            }
+            if (!AuthorResource.authors.containsKey(book.getAuthorId())) {
+                throw new AuthorNotFoundException("Author with ID " + book.getAuthorId() + " does not exist");
+            }
+            books[i] = book;
+        } catch (InvalidInputException | AuthorNotFoundException e) {
+            problems[i] = e.getMessage();
+        }
+    }
+
+    private static JsonObject parseLine(String line) {
+        JsonValue value;
+        try (JsonReader reader = JSON.createReader(new StringReader(line))) {
+            value = reader.readValue();
+        } catch (JsonException e) {
+            throw new InvalidInputException("Malformed JSON record");
+        }
+        if (value.getValueType() != JsonValue.ValueType.OBJECT) {
+            throw new InvalidInputException("Record must be a JSON object");
+        }
+        return value.asJsonObject();
+    }
+
+    // Client-supplied ids are ignored, as in POST /books
+    private static Book toBook(JsonObject json) {
+        Book book = new Book();
+        book.setTitle(string(json, "title"));
+        book.setAuthorId(integer(json, "authorId"));
+        book.setIsbn(string(json, "isbn"));
+        book.setPublicationYear(integer(json, "publicationYear"));
+        JsonNumber price = number(json, "price");
+        book.setPrice(price == null ? null : price.doubleValue());
+        book.setStock(integer(json, "stock"));
+        return book;
+    }
+
+    private static String string(JsonObject json, String name) {
+        JsonValue value = json.get(name);
+        if (value == null || value == JsonValue.NULL) return null;
+        if (!(value instanceof JsonString)) {
+            throw new InvalidInputException("Field '" + name + "' must be a string");
+        }
+        return ((JsonString) value).getString();
+    }
+
+    private static Integer integer(JsonObject json, String name) {
+        JsonNumber number = number(json, name);
+        if (number == null) return null;
+        try {
+            return number.intValueExact();
+        } catch (ArithmeticException e) {
+            throw new InvalidInputException("Field '" + name + "' must be an integer");
+        }
+    }
+
+    private static JsonNumber number(JsonObject json, String name) {
+        JsonValue value = json.get(name);
+        if (value == null || value == JsonValue.NULL) return null;
+        if (!(value instanceof JsonNumber)) {
+            throw new InvalidInputException("Field '" + name + "' must be a number");
+        }
+        return (JsonNumber) value;
+    }
+}
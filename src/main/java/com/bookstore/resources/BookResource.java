@@ -1,80 +1,213 @@
 package com.bookstore.resources;
 
 import com.bookstore.models.Book;
+import com.bookstore.models.Order;
+import com.bookstore.encoding.CborProvider;
 import com.bookstore.exceptions.*;
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.persistence.Store;
+import com.bookstore.search.TitleIndex;
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
+import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.logging.Logger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.Calendar;
 
 @Path("/books")
 public class BookResource {
-    private static final Logger LOGGER = Logger.getLogger(BookResource.class.getName());
-    public static Map<Integer, Book> books = new ConcurrentHashMap<>();
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(BookResource.class);
+    // Ordered by id so collection pages are stable under concurrent inserts
+    public static ConcurrentNavigableMap<Integer, Book> books = new ConcurrentSkipListMap<>();
+    // authorId -> ids of that author's books, kept in sync by create/update/delete
+    public static Map<Integer, NavigableSet<Integer>> booksByAuthor = new ConcurrentHashMap<>();
+    // isbn -> bookId; unique, claimed with putIfAbsent before a book becomes visible
+    public static Map<String, Integer> booksByIsbn = new ConcurrentHashMap<>();
+    // Inverted index over titles for GET /books/search
+    public static final TitleIndex titleIndex = new TitleIndex();
+    private static final int DEFAULT_SEARCH_RESULTS = 20;
+    private static final int MAX_SEARCH_RESULTS = 100;
     private static final AtomicInteger idCounter = new AtomicInteger(1);
+    // Bumped on any change to any book (stock included); versions the collection ETags
+    private static final LongAdder catalogVersion = new LongAdder();
+
+    @Context
+    private Request httpRequest;
 
     // POST /books
     @POST
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
     public Response createBook(Book book) {
-        LOGGER.info("[SERVER] [POST /books] Creating book: " + book.getTitle());
+        LOGGER.info("[POST /books] Creating book", "title", book.getTitle());
         validateBook(book);
 
         // Validate publication year
         int currentYear = Calendar.getInstance().get(Calendar.YEAR);
         if (book.getPublicationYear() > currentYear) {
-            LOGGER.warning("[SERVER] [POST /books] Invalid publication year: " + book.getPublicationYear());
+            LOGGER.warning("[POST /books] Invalid publication year", "publicationYear", book.getPublicationYear());
             throw new InvalidInputException("Publication year cannot be in the future");
         }
 
         // Validate author exists
         if (!AuthorResource.authors.containsKey(book.getAuthorId())) {
-            LOGGER.warning("[SERVER] [POST /books] Author not found: " + book.getAuthorId());
+            LOGGER.warning("[POST /books] Author not found", "authorId", book.getAuthorId());
             throw new AuthorNotFoundException("Author with ID " + book.getAuthorId() + " does not exist");
         }
 
         book.setId(idCounter.getAndIncrement());
-        books.put(book.getId(), book);
-        LOGGER.info("[SERVER] [POST /books] Book created. ID: " + book.getId());
+        try {
+            insert(book);
+        } catch (DuplicateIsbnException e) {
+            LOGGER.warning("[POST /books] Duplicate ISBN", "isbn", book.getIsbn());
+            throw e;
+        }
+        catalogChanged();
+        Store.awaitDurable();
+        LOGGER.info("[POST /books] Book created", "id", book.getId());
         return Response.status(Response.Status.CREATED).entity(book).build();
     }
 
-    // GET /books
-    @GET
+    // POST /books/batch with a JSON array body
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importBooks(InputStream body) {
+        LOGGER.info("[POST /books/batch] Importing books", "format", "json");
+        return importResult(BookBatch.fromJsonArray(body));
+    }
+
+    // POST /books/batch with an NDJSON body (one book per line)
+    @POST
+    @Path("/batch")
+    @Consumes(JsonStreaming.APPLICATION_NDJSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAllBooks() {
-        LOGGER.info("[SERVER] [GET /books] Fetching all books");
-        return Response.ok(new ArrayList<>(books.values())).build();
+    public Response importBooksNdjson(InputStream body) {
+        LOGGER.info("[POST /books/batch] Importing books", "format", "ndjson");
+        return importResult(BookBatch.fromNdjson(body));
+    }
+
+    private Response importResult(BookBatch batch) {
+        Store.awaitDurable();
+        LOGGER.info("[POST /books/batch] Import finished", "created", batch.created(), "failed", batch.failed());
+        return Response.ok(batch.summary()).build();
+    }
+
+    // GET /books?limit=&cursor=&authorId=
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public Response getAllBooks(
+        @QueryParam("limit") Integer limit,
+        @QueryParam("cursor") String cursor,
+        @QueryParam("authorId") Integer authorId
+    ) {
+        LOGGER.info("[GET /books] Fetching books");
+        int pageSize = Pagination.pageSize(limit);
+        Integer after = Pagination.decodeCursor(cursor);
+        EntityTag tag = ETags.ofCollection("books", catalogVersion(), pageSize, after, authorId);
+        return ETags.ok(httpRequest, tag, () -> pageOfBooks(pageSize, after, authorId));
+    }
+
+    private static Response.ResponseBuilder pageOfBooks(int pageSize, Integer after, Integer authorId) {
+        Iterator<Book> source;
+        if (authorId != null) {
+            // Walk the author's id-ordered index instead of filtering the catalog
+            NavigableSet<Integer> ids = getBookIdsByAuthor(authorId);
+            source = (after == null ? ids : ids.tailSet(after, false)).stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .iterator();
+        } else {
+            source = (after == null ? books : books.tailMap(after, false)).values().iterator();
+        }
+        return Pagination.page(source, pageSize, Book::getId);
+    }
+
+    // GET /books/search?q=&limit=
+    @GET
+    @Path("/search")
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public Response searchBooks(@QueryParam("q") String query, @QueryParam("limit") Integer limit) {
+        LOGGER.info("[GET /books/search] Searching books", "q", query);
+        if (query == null || query.trim().isEmpty()) {
+            throw new InvalidInputException("Query parameter 'q' is required");
+        }
+        if (limit != null && (limit <= 0 || limit > MAX_SEARCH_RESULTS)) {
+            throw new InvalidInputException("Limit must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+
+        int maxResults = limit != null ? limit : DEFAULT_SEARCH_RESULTS;
+        EntityTag tag = ETags.ofCollection("search", catalogVersion(), query, maxResults);
+        return ETags.ok(httpRequest, tag, () -> {
+            int[] ids = titleIndex.search(query, maxResults);
+            List<Book> results = new ArrayList<>(ids.length);
+            for (int bookId : ids) {
+                Book book = books.get(bookId);
+                if (book != null) {
+                    results.add(book);
+                }
+            }
+            return Response.ok(results);
+        });
+    }
+
+    // GET /books/export?format=json|ndjson
+    @GET
+    @Path("/export")
+    @Produces({MediaType.APPLICATION_JSON, JsonStreaming.APPLICATION_NDJSON})
+    public Response exportBooks(@QueryParam("format") String format) {
+        LOGGER.info("[GET /books/export] Streaming books");
+        return JsonStreaming.export(books.values().iterator(), format);
     }
 
     // GET /books/{id}
     @GET
     @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
     public Response getBookById(@PathParam("id") Integer id) {
-        LOGGER.info("[SERVER] [GET /books/" + id + "] Fetching book");
+        LOGGER.info("[GET /books/{id}] Fetching book", "id", id);
         Book book = books.get(id);
         if (book == null) {
-            LOGGER.warning("[SERVER] [GET /books/" + id + "] Book not found");
+            LOGGER.warning("[GET /books/{id}] Book not found", "id", id);
             throw new BookNotFoundException("Book with ID " + id + " not found");
         }
-        return Response.ok(book).build();
+        return ETags.ok(httpRequest, ETags.of("book", id, book.version()), () -> Response.ok(book));
+    }
+
+    // GET /books/isbn/{isbn}
+    @GET
+    @Path("/isbn/{isbn}")
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public Response getBookByIsbn(@PathParam("isbn") String isbn) {
+        LOGGER.info("[GET /books/isbn/{isbn}] Fetching book", "isbn", isbn);
+        if (!isValidIsbn(isbn)) {
+            throw new InvalidInputException("Invalid ISBN format. Expected format: XXX-XXXXXXXXXX");
+        }
+        Integer id = booksByIsbn.get(isbn);
+        Book book = id == null ? null : books.get(id);
+        if (book == null) {
+            LOGGER.warning("[GET /books/isbn/{isbn}] Book not found", "isbn", isbn);
+            throw new BookNotFoundException("Book with ISBN " + isbn + " not found");
+        }
+        return ETags.ok(httpRequest, ETags.of("book", id, book.version()), () -> Response.ok(book));
     }
 
     // PUT /books/{id}
     @PUT
     @Path("/{id}")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
     public Response updateBook(@PathParam("id") Integer id, Book updatedBook) {
-        LOGGER.info("[SERVER] [PUT /books/" + id + "] Updating book");
+        LOGGER.info("[PUT /books/{id}] Updating book", "id", id);
         Book existingBook = books.get(id);
         if (existingBook == null) {
-            LOGGER.warning("[SERVER] [PUT /books/" + id + "] Book not found");
+            LOGGER.warning("[PUT /books/{id}] Book not found", "id", id);
             throw new BookNotFoundException("Book with ID " + id + " not found");
         }
 
@@ -83,16 +216,66 @@ public class BookResource {
         // Validate publication year
         int currentYear = Calendar.getInstance().get(Calendar.YEAR);
         if (updatedBook.getPublicationYear() > currentYear) {
-            LOGGER.warning("[SERVER] [PUT /books/" + id + "] Invalid publication year");
+            LOGGER.warning("[PUT /books/{id}] Invalid publication year", "id", id);
             throw new InvalidInputException("Publication year cannot be in the future");
         }
 
         // Validate author exists
         if (!AuthorResource.authors.containsKey(updatedBook.getAuthorId())) {
-            LOGGER.warning("[SERVER] [PUT /books/" + id + "] Author not found");
+            LOGGER.warning("[PUT /books/{id}] Author not found", "id", id);
             throw new AuthorNotFoundException("Author with ID " + updatedBook.getAuthorId() + " not found");
         }
 
+        // Optimistic concurrency: check If-Match and apply under the book's lock
+        synchronized (existingBook) {
+            Response failed = ETags.preconditionFailed(httpRequest, ETags.of("book", id, existingBook.version()));
+            if (failed != null) {
+                LOGGER.warning("[PUT /books/{id}] Version mismatch", "id", id);
+                return failed;
+            }
+            // A concurrent delete may have won; re-indexing it would leak ISBN, author and title entries
+            if (books.get(id) != existingBook) {
+                LOGGER.warning("[PUT /books/{id}] Book not found", "id", id);
+                throw new BookNotFoundException("Book with ID " + id + " not found");
+            }
+            try {
+                applyUpdate(existingBook, updatedBook);
+            } catch (DuplicateIsbnException e) {
+                LOGGER.warning("[PUT /books/{id}] Duplicate ISBN", "id", id, "isbn", updatedBook.getIsbn());
+                throw e;
+            }
+            // Journaled under the lock so concurrent updates replay in the order they applied
+            Store.bookSaved(existingBook);
+        }
+        catalogChanged();
+        Store.awaitDurable();
+
+        LOGGER.info("[PUT /books/{id}] Book updated", "id", id);
+        return Response.ok(existingBook).tag(ETags.of("book", id, existingBook.version())).build();
+    }
+
+    private static void applyUpdate(Book existingBook, Book updatedBook) {
+        Integer id = existingBook.getId();
+        // Claim a changed ISBN first so a conflict leaves the book untouched
+        String previousIsbn = existingBook.getIsbn();
+        boolean isbnChanged = !previousIsbn.equals(updatedBook.getIsbn());
+        if (isbnChanged) {
+            claimIsbn(updatedBook.getIsbn(), id);
+        }
+
+        // Move the book to its new author's index entry if the author changed
+        Integer previousAuthorId = existingBook.getAuthorId();
+        if (!previousAuthorId.equals(updatedBook.getAuthorId())) {
+            indexByAuthor(updatedBook.getAuthorId(), id);
+            unindexByAuthor(previousAuthorId, id);
+        }
+
+        // Re-index the title if it changed
+        if (!existingBook.getTitle().equals(updatedBook.getTitle())) {
+            titleIndex.remove(id, existingBook.getTitle());
+            titleIndex.add(id, updatedBook.getTitle());
+        }
+
         // Update fields
         existingBook.setTitle(updatedBook.getTitle());
         existingBook.setAuthorId(updatedBook.getAuthorId());
@@ -100,27 +283,132 @@ public class BookResource {
         existingBook.setPublicationYear(updatedBook.getPublicationYear());
         existingBook.setPrice(updatedBook.getPrice());
         existingBook.setStock(updatedBook.getStock());
-
-        LOGGER.info("[SERVER] [PUT /books/" + id + "] Book updated");
-        return Response.ok(existingBook).build();
+        existingBook.touch();
+        if (isbnChanged) {
+            booksByIsbn.remove(previousIsbn, id);
+        }
     }
 
     // DELETE /books/{id}
     @DELETE
     @Path("/{id}")
     public Response deleteBook(@PathParam("id") Integer id) {
-        LOGGER.info("[SERVER] [DELETE /books/" + id + "] Deleting book");
-        if (!books.containsKey(id)) {
-            LOGGER.warning("[SERVER] [DELETE /books/" + id + "] Book not found");
+        LOGGER.info("[DELETE /books/{id}] Deleting book", "id", id);
+        Book removed = books.remove(id);
+        if (removed == null) {
+            LOGGER.warning("[DELETE /books/{id}] Book not found", "id", id);
             throw new BookNotFoundException("Book with ID " + id + " not found");
         }
-        books.remove(id);
-        LOGGER.info("[SERVER] [DELETE /books/" + id + "] Book deleted");
+        // Under the book's lock, so an update in flight has settled its index
+        // entries and been journaled first
+        synchronized (removed) {
+            unindexByAuthor(removed.getAuthorId(), id);
+            titleIndex.remove(id, removed.getTitle());
+            booksByIsbn.remove(removed.getIsbn(), id);
+            Store.bookDeleted(id);
+        }
+        catalogChanged();
+        Store.awaitDurable();
+        LOGGER.info("[DELETE /books/{id}] Book deleted", "id", id);
         return Response.ok().entity("Book id " +id + " successfully deleted").type(MediaType.TEXT_PLAIN).build();
     }
 
+    // Recovery: upsert a journaled book, keeping indexes and the id counter in step
+    public static void restore(Book book) {
+        Book previous = books.put(book.getId(), book);
+        if (previous != null) {
+            book.restoreStockState(previous.stockState());
+            unindexByAuthor(previous.getAuthorId(), book.getId());
+            titleIndex.remove(book.getId(), previous.getTitle());
+            booksByIsbn.remove(previous.getIsbn(), book.getId());
+        }
+        indexByAuthor(book.getAuthorId(), book.getId());
+        titleIndex.add(book.getId(), book.getTitle());
+        booksByIsbn.put(book.getIsbn(), book.getId());
+        idCounter.accumulateAndGet(book.getId() + 1, Math::max);
+    }
+
+    public static void restoreDelete(Integer id) {
+        Book removed = books.remove(id);
+        if (removed != null) {
+            unindexByAuthor(removed.getAuthorId(), id);
+            titleIndex.remove(id, removed.getTitle());
+            booksByIsbn.remove(removed.getIsbn(), id);
+        }
+    }
+
+    // Shared by POST /books and the batch import; the id is already assigned
+    // Locked from the moment the book is visible, so a PUT cannot be journaled before it
+    static void insert(Book book) {
+        synchronized (book) {
+            claimIsbn(book.getIsbn(), book.getId());
+            books.put(book.getId(), book);
+            indexByAuthor(book.getAuthorId(), book.getId());
+            titleIndex.add(book.getId(), book.getTitle());
+            Store.bookSaved(book);
+        }
+    }
+
+    // Hands out 'count' consecutive ids in one step; returns the first
+    static int reserveIds(int count) {
+        return idCounter.getAndAdd(count);
+    }
+
+    // Collection versioning: every book mutation, stock changes included, calls catalogChanged
+    public static void catalogChanged() {
+        catalogVersion.increment();
+    }
+
+    static long catalogVersion() {
+        return catalogVersion.sum();
+    }
+
+    // ISBN index helpers
+    private static void claimIsbn(String isbn, Integer bookId) {
+        Integer owner = booksByIsbn.putIfAbsent(isbn, bookId);
+        if (owner != null && !owner.equals(bookId)) {
+            throw new DuplicateIsbnException("ISBN " + isbn + " is already used by book ID " + owner);
+        }
+    }
+
+    // Same rule as \d{3}-\d{10}, checked by hand: no regex compile, no allocation
+    static boolean isValidIsbn(String isbn) {
+        if (isbn.length() != 14 || isbn.charAt(3) != '-') {
+            return false;
+        }
+        for (int i = 0; i < 14; i++) {
+            char c = isbn.charAt(i);
+            if (i != 3 && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Author index helpers
+    public static NavigableSet<Integer> getBookIdsByAuthor(Integer authorId) {
+        return booksByAuthor.getOrDefault(authorId, Collections.emptyNavigableSet());
+    }
+
+    private static void indexByAuthor(Integer authorId, Integer bookId) {
+        // Add inside compute so a concurrent unindex cannot drop the set underneath us
+        booksByAuthor.compute(authorId, (key, ids) -> {
+            NavigableSet<Integer> bookIds = ids != null ? ids : new ConcurrentSkipListSet<>();
+            bookIds.add(bookId);
+            return bookIds;
+        });
+    }
+
+    private static void unindexByAuthor(Integer authorId, Integer bookId) {
+        // Drop the entry atomically once the author's last book is gone
+        booksByAuthor.computeIfPresent(authorId, (key, ids) -> {
+            ids.remove(bookId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
     // Validation logic
-    private void validateBook(Book book) {
+    static void validateBook(Book book) {
         // Required fields
         if (book.getTitle() == null || book.getTitle().trim().isEmpty()) {
             throw new InvalidInputException("Title is required");
@@ -130,16 +418,17 @@ public class BookResource {
         }
         
         // ISBN validation
-        if (book.getIsbn() == null || book.getIsbn().trim().isEmpty()) {
+        if (book.getIsbn() == null || book.getIsbn().isBlank()) {
             throw new InvalidInputException("ISBN is required");
         }
-        if (!book.getIsbn().matches("\\d{3}-\\d{10}")) {
+        if (!isValidIsbn(book.getIsbn())) {
             throw new InvalidInputException("Invalid ISBN format. Expected format: XXX-XXXXXXXXXX");
         }
 
         // Numeric validations
-        if (book.getPrice() == null || book.getPrice() <= 0) {
-            throw new InvalidInputException("Price must be a positive value");
+        // Also rejects NaN and infinity; orders keep prices as int cents
+        if (book.getPrice() == null || !(book.getPrice() > 0 && book.getPrice() <= Order.MAX_PRICE)) {
+            throw new InvalidInputException("Price must be a positive value of at most 21474836.47");
         }
         if (book.getStock() == null || book.getStock() < 0) {
             throw new InvalidInputException("Stock cannot be negative");
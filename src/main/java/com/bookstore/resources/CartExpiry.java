@@ -0,0 +1,128 @@
+package com.bookstore.resources;
+
+import com.bookstore.async.TimingWheel;
+import com.bookstore.inventory.Inventory;
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.models.Book;
+import com.bookstore.models.Cart;
+import com.bookstore.models.Customer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Hands the stock of abandoned carts back. A non-empty cart expires, all lines
+// together, once it has gone unchanged for the TTL:
+//   -Dbookstore.cart.ttlSec=0            0 keeps carts forever (the default)
+//   -Dbookstore.cart.expiryTickMs=1000   timer resolution
+// Each cart has at most one timeout in the wheel. Touching the cart only moves
+// its deadline forward; when the timeout fires early it is rescheduled for the
+// remainder, so busy carts cost a field write rather than a cancel and reinsert.
+// Expiry runs on the wheel's thread and takes the cart lock, like checkout.
+public final class CartExpiry {
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(CartExpiry.class);
+
+    static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("bookstore.cart.ttlSec", 0L));
+    private static final long TICK_MILLIS = Long.getLong("bookstore.cart.expiryTickMs", 1000L);
+    private static final int WHEEL_SIZE = 4096;
+
+    // customerId -> pending expiry; only changed under that customer's cart lock
+    private static final Map<Integer, Entry> pending = new ConcurrentHashMap<>();
+    private static volatile TimingWheel<Entry> wheel;
+
+    private CartExpiry() {}
+
+    private static final class Entry {
+        final Customer customer;
+        long deadline; // System.nanoTime(), guarded by the cart lock
+        TimingWheel.Timeout timeout;
+
+        Entry(Customer customer, long deadline) {
+            this.customer = customer;
+            this.deadline = deadline;
+        }
+    }
+
+    // Called under the cart lock after every change to the cart
+    static void touched(Customer customer) {
+        if (TTL_NANOS <= 0) return;
+        Integer customerId = customer.getId();
+        Entry entry = pending.get(customerId);
+        if (entry != null && entry.customer != customer) {
+            entry.timeout.cancel();
+            entry = null;
+        }
+        if (!customer.getCart().hasItems()) {
+            if (entry != null) {
+                entry.timeout.cancel();
+                pending.remove(customerId);
+            }
+            return;
+        }
+        long deadline = System.nanoTime() + TTL_NANOS;
+        if (entry != null) {
+            entry.deadline = deadline;
+            return;
+        }
+        entry = new Entry(customer, deadline);
+        entry.timeout = wheel().schedule(entry, TTL_NANOS, TimeUnit.NANOSECONDS);
+        pending.put(customerId, entry);
+    }
+
+    private static void expire(Entry entry) {
+        Customer customer = entry.customer;
+        Cart cart = customer.getCart();
+        synchronized (cart) {
+            if (pending.get(customer.getId()) != entry) {
+                return;
+            }
+            long remaining = entry.deadline - System.nanoTime();
+            if (remaining > 0) {
+                entry.timeout = wheel.schedule(entry, remaining, TimeUnit.NANOSECONDS);
+                return;
+            }
+            pending.remove(customer.getId());
+
+            int lines = cart.getItems().size();
+            cart.forEachItem((bookId, quantity) -> {
+                Book book = BookResource.books.get(bookId);
+                if (book != null) {
+                    Inventory.release(book, quantity);
+                }
+            });
+            cart.clear();
+            // A deleted customer's cart is emptied but no longer journaled
+            if (CustomerResource.customers.get(customer.getId()) == customer) {
+                CartResource.cartChanged(customer);
+            } else {
+                cart.touch();
+            }
+            LOGGER.info("Cart expired, stock released", "customerId", customer.getId(), "lines", lines);
+        }
+    }
+
+    // Ends the wheel's thread when the application shuts down; carts keep their
+    // stock, and a later touch starts a new wheel
+    public static synchronized void stop() {
+        TimingWheel<Entry> current = wheel;
+        if (current != null) {
+            wheel = null;
+            current.stop();
+            pending.clear();
+        }
+    }
+
+    private static TimingWheel<Entry> wheel() {
+        TimingWheel<Entry> current = wheel;
+        if (current == null) {
+            synchronized (CartExpiry.class) {
+                current = wheel;
+                if (current == null) {
+                    current = new TimingWheel<>("bookstore-cart-expiry", TICK_MILLIS, TimeUnit.MILLISECONDS,
+                        WHEEL_SIZE, CartExpiry::expire);
+                    wheel = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -1,29 +1,42 @@
 package com.bookstore.resources;
 
 import com.bookstore.models.*;
+import com.bookstore.async.RequestExecutor;
 import com.bookstore.exceptions.*;
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.persistence.Store;
+import com.bookstore.inventory.Inventory;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.*;
 import java.util.*;
-import java.util.logging.Logger;
 
 @Path("/customers/{customerId}/cart")
+// Mutations are @Suspended and run on the RequestExecutor; the plain overloads
+// hold the logic and can be called directly.
 public class CartResource {
-    private static final Logger LOGGER = Logger.getLogger(CartResource.class.getName());
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(CartResource.class);
+
+    @Context
+    private Request httpRequest;
 
     // POST /customers/{customerId}/cart/items
     @POST
     @Path("/items")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response addToCart(
+    public void addToCart(
         @PathParam("customerId") Integer customerId,
-        CartItemRequest itemRequest
+        CartItemRequest itemRequest,
+        @Suspended AsyncResponse response
     ) {
-        LOGGER.info(String.format(
-            "[SERVER] [POST /customers/%d/cart/items] Adding item: Book ID %d, Quantity %d",
-            customerId, itemRequest.getBookId(), itemRequest.getQuantity()
-        ));
+        RequestExecutor.submit(response, () -> addToCart(customerId, itemRequest));
+    }
+
+    public Response addToCart(Integer customerId, CartItemRequest itemRequest) {
+        LOGGER.info("[POST /customers/{customerId}/cart/items] Adding item",
+            "customerId", customerId, "bookId", itemRequest.getBookId(), "quantity", itemRequest.getQuantity());
 
         // Validate customer exists
         Customer customer = getValidCustomer(customerId);
@@ -34,12 +47,16 @@ public class CartResource {
         // Validate quantity
         validateQuantity(itemRequest.getQuantity());
 
-        // Check stock availability
-        validateStock(book, itemRequest.getQuantity());
+        // Reserve stock atomically, then update cart (under the cart lock, see createOrder)
+        Cart cart = customer.getCart();
+        synchronized (cart) {
+            Inventory.reserve(book, itemRequest.getQuantity());
+            // Adding a book already in the cart adds to its line, as much as was reserved
+            cart.addItem(itemRequest.getBookId(), cart.quantityOf(itemRequest.getBookId()) + itemRequest.getQuantity());
+            cartChanged(customer);
+        }
+        Store.awaitDurable();
 
-        // Update cart and stock
-        updateCartAndStock(customer, book, itemRequest.getBookId(), itemRequest.getQuantity());
-        
         return Response.ok()
             .entity(Map.of("message", "Item successfully added to cart"))
             .build();
@@ -49,9 +66,10 @@ public class CartResource {
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Response getCart(@PathParam("customerId") Integer customerId) {
-        LOGGER.info(String.format("[SERVER] [GET /customers/%d/cart]", customerId));
+        LOGGER.info("[GET /customers/{customerId}/cart] Fetching cart", "customerId", customerId);
         Customer customer = getValidCustomer(customerId);
-        return Response.ok(customer.getCart().getItems()).build();
+        Cart cart = customer.getCart();
+        return ETags.ok(httpRequest, ETags.of("cart", customerId, cart.version()), () -> Response.ok(cart.getItems()));
     }
 
     // PUT /customers/{customerId}/cart/items/{bookId}
@@ -59,30 +77,46 @@ public class CartResource {
     @Path("/items/{bookId}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response updateCartItem(
+    public void updateCartItem(
         @PathParam("customerId") Integer customerId,
         @PathParam("bookId") Integer bookId,
-        QuantityUpdateRequest request
+        QuantityUpdateRequest request,
+        @Suspended AsyncResponse response
     ) {
-        LOGGER.info(String.format(
-            "[SERVER] [PUT /customers/%d/cart/items/%d] Updating quantity to %d",
-            customerId, bookId, request.getQuantity()
-        ));
+        RequestExecutor.submit(response, () -> updateCartItem(customerId, bookId, request));
+    }
+
+    public Response updateCartItem(Integer customerId, Integer bookId, QuantityUpdateRequest request) {
+        LOGGER.info("[PUT /customers/{customerId}/cart/items/{bookId}] Updating quantity",
+            "customerId", customerId, "bookId", bookId, "quantity", request.getQuantity());
 
         Customer customer = getValidCustomer(customerId);
         Book book = getValidBook(bookId);
         validateQuantity(request.getQuantity());
 
-        Map<Integer, Integer> cartItems = customer.getCart().getItems();
-        int currentQuantity = cartItems.getOrDefault(bookId, 0);
-        int stockDifference = request.getQuantity() - currentQuantity;
-
-        validateStockForUpdate(book, stockDifference);
+        Cart cart = customer.getCart();
+        synchronized (cart) {
+            // Optimistic concurrency against the cart version (GET .../cart ETag)
+            Response failed = ETags.preconditionFailed(httpRequest, ETags.of("cart", customerId, cart.version()));
+            if (failed != null) {
+                LOGGER.warning("[PUT /customers/{customerId}/cart/items/{bookId}] Version mismatch", "customerId", customerId);
+                return failed;
+            }
+
+            int currentQuantity = cart.quantityOf(bookId);
+            int stockDifference = request.getQuantity() - currentQuantity;
+
+            // Reserve the extra quantity atomically, or hand back the surplus
+            if (stockDifference > 0) {
+                Inventory.reserve(book, stockDifference);
+            } else if (stockDifference < 0) {
+                Inventory.release(book, -stockDifference);
+            }
+            cart.addItem(bookId, request.getQuantity());
+            cartChanged(customer);
+        }
+        Store.awaitDurable();
 
-        // Update cart and stock
-        cartItems.put(bookId, request.getQuantity());
-        book.setStock(book.getStock() - stockDifference);
-        
         return Response.ok()
             .entity(Map.of(
                 "message", "Cart item updated successfully",
@@ -96,28 +130,36 @@ public class CartResource {
     @DELETE
     @Path("/items/{bookId}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response removeCartItem(
+    public void removeCartItem(
         @PathParam("customerId") Integer customerId,
-        @PathParam("bookId") Integer bookId
+        @PathParam("bookId") Integer bookId,
+        @Suspended AsyncResponse response
     ) {
-        LOGGER.info(String.format(
-            "[SERVER] [DELETE /customers/%d/cart/items/%d]", customerId, bookId
-        ));
+        RequestExecutor.submit(response, () -> removeCartItem(customerId, bookId));
+    }
+
+    public Response removeCartItem(Integer customerId, Integer bookId) {
+        LOGGER.info("[DELETE /customers/{customerId}/cart/items/{bookId}] Removing item",
+            "customerId", customerId, "bookId", bookId);
 
         Customer customer = getValidCustomer(customerId);
-        Map<Integer, Integer> cartItems = customer.getCart().getItems();
-        
-        Integer quantity = cartItems.remove(bookId);
-        if (quantity == null) {
-            throw new CartNotFoundException("Book ID " + bookId + " not found in cart");
+        Cart cart = customer.getCart();
+        int quantity;
+        synchronized (cart) {
+            quantity = cart.removeItem(bookId);
+            if (quantity == 0) {
+                throw new CartNotFoundException("Book ID " + bookId + " not found in cart");
+            }
+
+            // Restore stock
+            Book book = BookResource.books.get(bookId);
+            if (book != null) {
+                Inventory.release(book, quantity);
+            }
+            cartChanged(customer);
         }
+        Store.awaitDurable();
 
-        // Restore stock
-        Book book = BookResource.books.get(bookId);
-        if (book != null) {
-            book.setStock(book.getStock() + quantity);
-        }
-        
         return Response.ok()
             .entity(Map.of(
                 "message", "Item removed from cart",
@@ -127,6 +169,21 @@ public class CartResource {
             .build();
     }
 
+    // Bumps the cart's version (the customer's JSON embeds the cart), journals it
+    // and pushes back its expiry; callers hold the cart lock
+    static void cartChanged(Customer customer) {
+        cartTouched(customer);
+        Store.cartSaved(customer);
+    }
+
+    // cartChanged without the journal record, for checkout, whose own record
+    // stands for the emptied cart
+    static void cartTouched(Customer customer) {
+        customer.getCart().touch();
+        CartExpiry.touched(customer);
+        CustomerResource.customersChanged();
+    }
+
     // Helper methods
     private Customer getValidCustomer(Integer customerId) {
         Customer customer = CustomerResource.customers.get(customerId);
@@ -150,29 +207,6 @@ public class CartResource {
         }
     }
 
-    private void validateStock(Book book, Integer requestedQuantity) {
-        if (book.getStock() < requestedQuantity) {
-            throw new OutOfStockException(String.format(
-                "Insufficient stock for Book ID %d. Available: %d, Requested: %d",
-                book.getId(), book.getStock(), requestedQuantity
-            ));
-        }
-    }
-
-    private void validateStockForUpdate(Book book, int stockDifference) {
-        if (stockDifference > 0 && book.getStock() < stockDifference) {
-            throw new OutOfStockException(String.format(
-                "Insufficient stock for update. Available: %d, Needed: %d",
-                book.getStock(), stockDifference
-            ));
-        }
-    }
-
-    private void updateCartAndStock(Customer customer, Book book, Integer bookId, Integer quantity) {
-        customer.getCart().addItem(bookId, quantity);
-        book.setStock(book.getStock() - quantity);
-    }
-
     // Request DTOs
     public static class CartItemRequest {
         private Integer bookId;
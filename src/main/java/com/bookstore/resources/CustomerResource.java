@@ -2,52 +2,114 @@ package com.bookstore.resources;
 
 import com.bookstore.models.Customer;
 import com.bookstore.exceptions.*;
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.persistence.Store;
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.logging.Logger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 
 @Path("/customers")
 public class CustomerResource {
-    private static final Logger LOGGER = Logger.getLogger(CustomerResource.class.getName());
-    public static Map<Integer, Customer> customers = new ConcurrentHashMap<>();
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(CustomerResource.class);
+    public static ConcurrentNavigableMap<Integer, Customer> customers = new ConcurrentSkipListMap<>();
+    // normalized email -> customerId; unique, claimed with putIfAbsent before a customer becomes visible
+    public static Map<String, Integer> customersByEmail = new ConcurrentHashMap<>();
     private static final AtomicInteger idCounter = new AtomicInteger(1);
     private static final Pattern EMAIL_REGEX = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+    // Bumped on any customer or cart change; versions the collection ETags
+    private static final LongAdder customersVersion = new LongAdder();
+
+    @Context
+    private Request httpRequest;
 
     // POST /customers
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     public Response createCustomer(Customer customer) {
-        LOGGER.info("[SERVER] [POST /customers] Creating customer: " + customer.getEmail());
+        LOGGER.info("[POST /customers] Creating customer", "email", customer.getEmail());
         
         // Validate email format
-        if (!EMAIL_REGEX.matcher(customer.getEmail()).matches()) {
-            LOGGER.warning("[SERVER] [POST /customers] Invalid email: " + customer.getEmail());
+        if (customer.getEmail() == null || !EMAIL_REGEX.matcher(customer.getEmail()).matches()) {
+            LOGGER.warning("[POST /customers] Invalid email", "email", customer.getEmail());
             throw new InvalidInputException("Invalid email format");
         }
 
         // Validate required fields
         if (customer.getPassword() == null || customer.getPassword().trim().isEmpty()) {
-            LOGGER.warning("[SERVER] [POST /customers] Missing password");
+            LOGGER.warning("[POST /customers] Missing password");
             throw new InvalidInputException("Password is required");
         }
 
         customer.setId(idCounter.getAndIncrement());
-        customers.put(customer.getId(), customer);
-        LOGGER.info("[SERVER] [POST /customers] Customer created. ID: " + customer.getId());
+        try {
+            claimEmail(customer.getEmail(), customer.getId());
+        } catch (DuplicateEmailException e) {
+            LOGGER.warning("[POST /customers] Duplicate email", "email", customer.getEmail());
+            throw e;
+        }
+        // Locked from the moment the customer is visible, so a PUT cannot be journaled before it
+        synchronized (customer) {
+            customers.put(customer.getId(), customer);
+            Store.customerSaved(customer);
+        }
+        customersChanged();
+        Store.awaitDurable();
+        LOGGER.info("[POST /customers] Customer created", "id", customer.getId());
         return Response.status(Response.Status.CREATED).entity(customer).build();
     }
 
-    // GET /customers
+    // GET /customers?limit=&cursor=
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAllCustomers() {
-        LOGGER.info("[SERVER] [GET /customers] Fetching all customers");
-        return Response.ok(new ArrayList<>(customers.values())).build();
+    public Response getAllCustomers(
+        @QueryParam("limit") Integer limit,
+        @QueryParam("cursor") String cursor
+    ) {
+        LOGGER.info("[GET /customers] Fetching customers");
+        int pageSize = Pagination.pageSize(limit);
+        Integer after = Pagination.decodeCursor(cursor);
+        EntityTag tag = ETags.ofCollection("customers", customersVersion.sum(), pageSize, after);
+        return ETags.ok(httpRequest, tag, () -> {
+            Iterator<Customer> source = (after == null ? customers : customers.tailMap(after, false)).values().iterator();
+            return Pagination.page(source, pageSize, Customer::getId);
+        });
+    }
+
+    // GET /customers/export?format=json|ndjson
+    @GET
+    @Path("/export")
+    @Produces({MediaType.APPLICATION_JSON, JsonStreaming.APPLICATION_NDJSON})
+    public Response exportCustomers(@QueryParam("format") String format) {
+        LOGGER.info("[GET /customers/export] Streaming customers");
+        return JsonStreaming.export(customers.values().iterator(), format);
+    }
+
+    // GET /customers/by-email?email=
+    // Matches regardless of case, like signup uniqueness
+    @GET
+    @Path("/by-email")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCustomerByEmail(@QueryParam("email") String email) {
+        LOGGER.info("[GET /customers/by-email] Fetching customer", "email", email);
+        if (email == null || email.isBlank()) {
+            throw new InvalidInputException("Email is required");
+        }
+        String key = normalizeEmail(email);
+        Integer id = customersByEmail.get(key);
+        Customer customer = id == null ? null : customers.get(id);
+        // The entry can briefly outlive an email change; the customer's own address decides
+        if (customer == null || !key.equals(normalizeEmail(customer.getEmail()))) {
+            LOGGER.warning("[GET /customers/by-email] Customer not found", "email", email);
+            throw new CustomerNotFoundException("Customer with email " + email + " not found");
+        }
+        return ETags.ok(httpRequest, ETags.of("customer", id, customer.version()), () -> Response.ok(customer));
     }
 
     // GET /customers/{id}
@@ -55,13 +117,13 @@ public class CustomerResource {
     @Path("/{id}")
     @Produces(MediaType.APPLICATION_JSON)
     public Response getCustomerById(@PathParam("id") Integer id) {
-        LOGGER.info("[SERVER] [GET /customers/" + id + "] Fetching customer");
+        LOGGER.info("[GET /customers/{id}] Fetching customer", "id", id);
         Customer customer = customers.get(id);
         if (customer == null) {
-            LOGGER.warning("[SERVER] [GET /customers/" + id + "] Customer not found");
+            LOGGER.warning("[GET /customers/{id}] Customer not found", "id", id);
             throw new CustomerNotFoundException("Customer with ID " + id + " not found");
         }
-        return Response.ok(customer).build();
+        return ETags.ok(httpRequest, ETags.of("customer", id, customer.version()), () -> Response.ok(customer));
     }
 
     // PUT /customers/{id}
@@ -70,39 +132,123 @@ public class CustomerResource {
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     public Response updateCustomer(@PathParam("id") Integer id, Customer updatedCustomer) {
-        LOGGER.info("[SERVER] [PUT /customers/" + id + "] Updating customer");
+        LOGGER.info("[PUT /customers/{id}] Updating customer", "id", id);
         Customer existingCustomer = customers.get(id);
         if (existingCustomer == null) {
-            LOGGER.warning("[SERVER] [PUT /customers/" + id + "] Customer not found");
+            LOGGER.warning("[PUT /customers/{id}] Customer not found", "id", id);
             throw new CustomerNotFoundException("Customer with ID " + id + " not found");
         }
 
         // Validate email format
-        if (!EMAIL_REGEX.matcher(updatedCustomer.getEmail()).matches()) {
-            LOGGER.warning("[SERVER] [PUT /customers/" + id + "] Invalid email: " + updatedCustomer.getEmail());
+        if (updatedCustomer.getEmail() == null || !EMAIL_REGEX.matcher(updatedCustomer.getEmail()).matches()) {
+            LOGGER.warning("[PUT /customers/{id}] Invalid email", "id", id, "email", updatedCustomer.getEmail());
             throw new InvalidInputException("Invalid email format");
         }
 
-        // Update fields
-        existingCustomer.setFirstName(updatedCustomer.getFirstName());
-        existingCustomer.setLastName(updatedCustomer.getLastName());
-        existingCustomer.setEmail(updatedCustomer.getEmail());
-        existingCustomer.setPassword(updatedCustomer.getPassword());
-        LOGGER.info("[SERVER] [PUT /customers/" + id + "] Customer updated");
-        return Response.ok(existingCustomer).build();
+        // Optimistic concurrency: check If-Match and apply under the customer's lock
+        synchronized (existingCustomer) {
+            Response failed = ETags.preconditionFailed(httpRequest, ETags.of("customer", id, existingCustomer.version()));
+            if (failed != null) {
+                LOGGER.warning("[PUT /customers/{id}] Version mismatch", "id", id);
+                return failed;
+            }
+            // A concurrent delete may have won; claiming an email for it would leak the entry
+            if (customers.get(id) != existingCustomer) {
+                LOGGER.warning("[PUT /customers/{id}] Customer not found", "id", id);
+                throw new CustomerNotFoundException("Customer with ID " + id + " not found");
+            }
+            // Claim a changed email first so a conflict leaves the customer untouched
+            String previousEmail = normalizeEmail(existingCustomer.getEmail());
+            boolean emailChanged = !previousEmail.equals(normalizeEmail(updatedCustomer.getEmail()));
+            if (emailChanged) {
+                try {
+                    claimEmail(updatedCustomer.getEmail(), id);
+                } catch (DuplicateEmailException e) {
+                    LOGGER.warning("[PUT /customers/{id}] Duplicate email", "id", id, "email", updatedCustomer.getEmail());
+                    throw e;
+                }
+            }
+            // Update fields
+            existingCustomer.setFirstName(updatedCustomer.getFirstName());
+            existingCustomer.setLastName(updatedCustomer.getLastName());
+            existingCustomer.setEmail(updatedCustomer.getEmail());
+            existingCustomer.setPassword(updatedCustomer.getPassword());
+            existingCustomer.touch();
+            if (emailChanged) {
+                customersByEmail.remove(previousEmail, id);
+            }
+            // Journaled under the lock so concurrent updates replay in the order they applied
+            Store.customerSaved(existingCustomer);
+        }
+        customersChanged();
+        Store.awaitDurable();
+        LOGGER.info("[PUT /customers/{id}] Customer updated", "id", id);
+        return Response.ok(existingCustomer).tag(ETags.of("customer", id, existingCustomer.version())).build();
     }
 
     // DELETE /customers/{id}
     @DELETE
     @Path("/{id}")
     public Response deleteCustomer(@PathParam("id") Integer id) {
-        LOGGER.info("[SERVER] [DELETE /customers/" + id + "] Deleting customer");
-        if (!customers.containsKey(id)) {
-            LOGGER.warning("[SERVER] [DELETE /customers/" + id + "] Customer not found");
+        LOGGER.info("[DELETE /customers/{id}] Deleting customer", "id", id);
+        Customer removed = customers.remove(id);
+        if (removed == null) {
+            LOGGER.warning("[DELETE /customers/{id}] Customer not found", "id", id);
             throw new CustomerNotFoundException("Customer with ID " + id + " not found");
         }
-        customers.remove(id);
-        LOGGER.info("[SERVER] [DELETE /customers/" + id + "] Customer deleted");
+        // Under the customer's lock, so an update in flight has settled its email
+        // and been journaled first
+        synchronized (removed) {
+            customersByEmail.remove(normalizeEmail(removed.getEmail()), id);
+            Store.customerDeleted(id);
+        }
+        customersChanged();
+        Store.awaitDurable();
+        LOGGER.info("[DELETE /customers/{id}] Customer deleted", "id", id);
         return Response.ok().entity("Customer id " +id + " successfully deleted").type(MediaType.TEXT_PLAIN).build();
     }
-}
\ No newline at end of file
+
+    // Collection versioning: customer and cart mutations call this
+    static void customersChanged() {
+        customersVersion.increment();
+    }
+
+    // Recovery: upsert a journaled customer, keeping the cart of an earlier version
+    public static void restore(Customer customer) {
+        Customer previous = customers.put(customer.getId(), customer);
+        if (previous != null) {
+            customer.getCart().replaceItems(previous.getCart().getItems());
+            customersByEmail.remove(normalizeEmail(previous.getEmail()), customer.getId());
+        }
+        customersByEmail.put(normalizeEmail(customer.getEmail()), customer.getId());
+        idCounter.accumulateAndGet(customer.getId() + 1, Math::max);
+    }
+
+    public static void restoreDelete(Integer id) {
+        Customer removed = customers.remove(id);
+        if (removed != null) {
+            customersByEmail.remove(normalizeEmail(removed.getEmail()), id);
+        }
+    }
+
+    public static void restoreCart(Integer customerId, Map<Integer, Integer> items) {
+        Customer customer = customers.get(customerId);
+        if (customer != null) {
+            customer.getCart().replaceItems(items);
+            // Recovered carts get a full TTL from restart
+            CartExpiry.touched(customer);
+        }
+    }
+
+    // Email index helpers
+    private static void claimEmail(String email, Integer customerId) {
+        if (customersByEmail.putIfAbsent(normalizeEmail(email), customerId) != null) {
+            throw new DuplicateEmailException("Email " + email + " is already registered");
+        }
+    }
+
+    // Addresses are compared case-insensitively and without surrounding whitespace
+    static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
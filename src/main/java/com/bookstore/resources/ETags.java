@@ -0,0 +1,44 @@
+package com.bookstore.resources;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+// Strong ETags built from the per-entity version counters. Versions restart
+// from zero with the process, so every tag carries the boot epoch: a tag
+// issued before a restart never matches afterwards.
+final class ETags {
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETags() {}
+
+    static EntityTag of(String kind, int id, long version) {
+        return new EntityTag(kind + "-" + id + "-" + version + "-" + EPOCH);
+    }
+
+    // Collection tags also cover the query, so each page is its own representation
+    static EntityTag ofCollection(String kind, long version, Object... query) {
+        return new EntityTag(kind + "-" + version + "-" + Integer.toHexString(Arrays.hashCode(query)) + "-" + EPOCH);
+    }
+
+    // 304 without touching the body when If-None-Match matches, otherwise 200 with the tag.
+    // Read the version before the state: a racing write then only costs a spurious 200.
+    // A null request (resource called outside Jersey, e.g. from benchmarks) has no preconditions.
+    // The tag names the state, not the encoding (JSON or CBOR), so caches must also key on Accept.
+    static Response ok(Request request, EntityTag tag, Supplier<Response.ResponseBuilder> body) {
+        Response.ResponseBuilder notModified = request == null ? null : request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+        }
+        return body.get().tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+    }
+
+    // Non-null (412) when the request's If-Match does not name the current version
+    static Response preconditionFailed(Request request, EntityTag current) {
+        Response.ResponseBuilder failed = request == null ? null : request.evaluatePreconditions(current);
+        return failed == null ? null : failed.tag(current).build();
+    }
+}
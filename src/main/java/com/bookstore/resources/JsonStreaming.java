@@ -0,0 +1,73 @@
+package com.bookstore.resources;
+
+import com.bookstore.exceptions.InvalidInputException;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+// Writes collections element by element so export responses never hold the
+// whole listing in memory; the source iterator is consumed while streaming.
+final class JsonStreaming {
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final Jsonb JSONB = JsonbBuilder.create();
+
+    private JsonStreaming() {}
+
+    // format: "json" (default) for a single JSON array, "ndjson" for one object per line
+    static Response export(Iterator<?> source, String format) {
+        if (format == null || format.equals("json")) {
+            return Response.ok(array(source), MediaType.APPLICATION_JSON_TYPE).build();
+        }
+        if (format.equals("ndjson")) {
+            return Response.ok(ndjson(source), APPLICATION_NDJSON).build();
+        }
+        throw new InvalidInputException("Format must be 'json' or 'ndjson'");
+    }
+
+    static StreamingOutput array(Iterator<?> source) {
+        return output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            Writer element = new NonClosingWriter(writer);
+            writer.write('[');
+            boolean first = true;
+            while (source.hasNext()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                JSONB.toJson(source.next(), element);
+                first = false;
+            }
+            writer.write(']');
+            writer.flush();
+        };
+    }
+
+    static StreamingOutput ndjson(Iterator<?> source) {
+        return output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            Writer element = new NonClosingWriter(writer);
+            while (source.hasNext()) {
+                JSONB.toJson(source.next(), element);
+                writer.write('\n');
+            }
+            writer.flush();
+        };
+    }
+
+    // JSON-B closes the writer after each document; keep the response stream open
+    private static final class NonClosingWriter extends FilterWriter {
+        NonClosingWriter(Writer out) { super(out); }
+
+        @Override
+        public void close() { }
+    }
+}
@@ -0,0 +1,90 @@
+package com.bookstore.resources;
+
+import com.bookstore.limits.AdaptiveLimit;
+import com.bookstore.limits.ConcurrencyLimitFilter;
+import com.bookstore.metrics.EndpointMetrics;
+import com.bookstore.metrics.LatencyHistogram;
+import com.bookstore.metrics.MetricsFilter;
+import javax.ws.rs.*;
+import javax.ws.rs.core.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+@Path("/metrics")
+public class MetricsResource {
+    static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final String[] STATUS_CLASSES = {"", "1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    // GET /metrics (Prometheus text exposition format)
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public Response getMetrics() {
+        List<EndpointMetrics> endpoints = new ArrayList<>(MetricsFilter.endpoints());
+        endpoints.sort(Comparator.comparing(EndpointMetrics::name));
+        StringBuilder out = new StringBuilder(256 + endpoints.size() * 512);
+
+        out.append("# HELP bookstore_request_latency_seconds Request latency per resource method since startup\n");
+        out.append("# TYPE bookstore_request_latency_seconds summary\n");
+        for (EndpointMetrics endpoint : endpoints) {
+            LatencyHistogram.Snapshot latency = endpoint.latency().snapshot();
+            for (double quantile : QUANTILES) {
+                out.append("bookstore_request_latency_seconds{endpoint=\"").append(endpoint.name())
+                    .append("\",quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(latency.valueAtQuantile(quantile))).append('\n');
+            }
+            out.append("bookstore_request_latency_seconds_sum{endpoint=\"").append(endpoint.name()).append("\"} ")
+                .append(seconds(latency.totalNanos())).append('\n');
+            out.append("bookstore_request_latency_seconds_count{endpoint=\"").append(endpoint.name()).append("\"} ")
+                .append(latency.count()).append('\n');
+        }
+
+        out.append("# HELP bookstore_responses_total Responses per resource method and status class\n");
+        out.append("# TYPE bookstore_responses_total counter\n");
+        for (EndpointMetrics endpoint : endpoints) {
+            for (int statusClass = 1; statusClass < STATUS_CLASSES.length; statusClass++) {
+                long responses = endpoint.responses(statusClass);
+                if (responses > 0) {
+                    out.append("bookstore_responses_total{endpoint=\"").append(endpoint.name())
+                        .append("\",status=\"").append(STATUS_CLASSES[statusClass]).append("\"} ")
+                        .append(responses).append('\n');
+                }
+            }
+        }
+
+        out.append("# HELP bookstore_requests_in_flight Requests currently being handled per resource method\n");
+        out.append("# TYPE bookstore_requests_in_flight gauge\n");
+        for (EndpointMetrics endpoint : endpoints) {
+            out.append("bookstore_requests_in_flight{endpoint=\"").append(endpoint.name()).append("\"} ")
+                .append(endpoint.inFlight()).append('\n');
+        }
+
+        if (ConcurrencyLimitFilter.enabled()) {
+            out.append("# HELP bookstore_concurrency_limit Current adaptive concurrency limit per request class\n");
+            out.append("# TYPE bookstore_concurrency_limit gauge\n");
+            for (AdaptiveLimit limit : ConcurrencyLimitFilter.limits()) {
+                out.append("bookstore_concurrency_limit{class=\"").append(limit.name()).append("\"} ")
+                    .append(limit.limit()).append('\n');
+            }
+            out.append("# HELP bookstore_concurrency_in_flight Admitted requests in flight per request class\n");
+            out.append("# TYPE bookstore_concurrency_in_flight gauge\n");
+            for (AdaptiveLimit limit : ConcurrencyLimitFilter.limits()) {
+                out.append("bookstore_concurrency_in_flight{class=\"").append(limit.name()).append("\"} ")
+                    .append(limit.inFlight()).append('\n');
+            }
+            out.append("# HELP bookstore_concurrency_rejected_total Requests shed with 503 per request class\n");
+            out.append("# TYPE bookstore_concurrency_rejected_total counter\n");
+            for (AdaptiveLimit limit : ConcurrencyLimitFilter.limits()) {
+                out.append("bookstore_concurrency_rejected_total{class=\"").append(limit.name()).append("\"} ")
+                    .append(limit.rejected()).append('\n');
+            }
+        }
+        return Response.ok(out.toString(), PROMETHEUS_TEXT).build();
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
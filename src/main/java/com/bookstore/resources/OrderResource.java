@@ -1,107 +1,348 @@
 package com.bookstore.resources;
 
+import com.bookstore.analytics.SalesAnalytics;
 import com.bookstore.models.*;
+import com.bookstore.async.RequestExecutor;
+import com.bookstore.encoding.CborProvider;
 import com.bookstore.exceptions.*;
+import com.bookstore.logging.StructuredLogger;
+import com.bookstore.persistence.OrderArchive;
+import com.bookstore.persistence.Store;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.*;
 import java.util.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.logging.Logger;
+import java.util.concurrent.atomic.LongAdder;
 
 @Path("/customers/{customerId}/orders")
 public class OrderResource {
-    private static final Logger LOGGER = Logger.getLogger(OrderResource.class.getName());
-    private static final Map<Integer, Order> orders = new ConcurrentHashMap<>();
+    private static final StructuredLogger LOGGER = StructuredLogger.getLogger(OrderResource.class);
+    // Orders still on the heap, by id; older ones may have moved to the OrderArchive
+    private static final ConcurrentSkipListMap<Integer, Order> orders = new ConcurrentSkipListMap<>();
     private static final AtomicInteger orderIdCounter = new AtomicInteger(1);
 
+    // customerId -> that customer's orders, oldest first (orderDate, then id)
+    private static final Comparator<Order> ORDER_HISTORY =
+        Comparator.comparing(Order::getOrderDate).thenComparing(Order::getId);
+    private static final Map<Integer, NavigableSet<Order>> ordersByCustomer = new ConcurrentHashMap<>();
+    // Bumped whenever an order is placed; versions the history ETags
+    private static final LongAdder ordersVersion = new LongAdder();
+
+    @Context
+    private Request httpRequest;
+
     // POST /customers/{customerId}/orders
     @POST
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response createOrder(@PathParam("customerId") Integer customerId) {
-        LOGGER.info("[SERVER] [POST /customers/" + customerId + "/orders] Creating order");
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public void createOrder(@PathParam("customerId") Integer customerId, @Suspended AsyncResponse response) {
+        RequestExecutor.submit(response, () -> createOrder(customerId));
+    }
+
+    // Checkout runs on the RequestExecutor; this overload holds the logic
+    public Response createOrder(Integer customerId) {
+        LOGGER.info("[POST /customers/{customerId}/orders] Creating order", "customerId", customerId);
 
         // Validate customer exists
         Customer customer = CustomerResource.customers.get(customerId);
         if (customer == null) {
-            LOGGER.warning("[SERVER] Customer not found: " + customerId);
+            LOGGER.warning("Customer not found", "customerId", customerId);
             throw new CustomerNotFoundException("Customer ID " + customerId + " not found");
         }
 
-        // Check if cart is empty
-        Map<Integer, Integer> cartItems = customer.getCart().getItems();
-        if (cartItems.isEmpty()) {
-            LOGGER.warning("[SERVER] Cart is empty for customer: " + customerId);
-            throw new InvalidInputException("Cart is empty");
-        }
-
-        // Validate stock for all items before processing
-        cartItems.forEach((bookId, quantity) -> {
-            Book book = BookResource.books.get(bookId);
-            if (book == null) {
-                LOGGER.warning("[SERVER] Book not found: " + bookId);
-                throw new BookNotFoundException("Book ID " + bookId + " not found");
-            }
-            if (book.getStock() < quantity) {
-                LOGGER.warning(String.format(
-                    "[SERVER] Insufficient stock for Book ID %d. Available: %d, Required: %d",
-                    bookId, book.getStock(), quantity
-                ));
-                throw new OutOfStockException("Insufficient stock for book ID " + bookId);
+        // Checkout takes no book locks. Each line's stock was reserved by a CAS in
+        // Inventory.reserve when it went into the cart, so there is nothing left to
+        // check or deduct across lines; the order takes the stock over as it is, and
+        // deducting it again here would lose it for good. The cart lock makes snapshot
+        // and clear one step with respect to cart edits. It is the only lock held, so
+        // checkouts of different carts never wait on each other and cannot deadlock.
+        Cart cart = customer.getCart();
+        Order order;
+        synchronized (cart) {
+            // Check if cart is empty
+            if (!cart.hasItems()) {
+                LOGGER.warning("Cart is empty", "customerId", customerId);
+                throw new InvalidInputException("Cart is empty");
             }
-        });
 
-        // Deduct stock and create order
-        Order order = new Order();
-        order.setId(orderIdCounter.getAndIncrement());
-        order.setCustomerId(customerId);
-        order.setItems(new HashMap<>(cartItems));
-        order.setOrderDate(new Date());
+            // Resolve every book of the cart (an immutable snapshot) before placing the order
+            Map<Integer, Integer> items = cart.getItems();
+            IntIntMap unitPrices = new IntIntMap(items.size());
+            IntIntMap authorIds = new IntIntMap(items.size());
+            items.forEach((bookId, quantity) -> {
+                Book book = BookResource.books.get(bookId);
+                if (book == null) {
+                    LOGGER.warning("Book not found", "bookId", bookId);
+                    throw new BookNotFoundException("Book ID " + bookId + " not found");
+                }
+                unitPrices.putInt(bookId, book.getPrice() == null ? 0 : Order.toCents(book.getPrice()));
+                authorIds.putInt(bookId, book.getAuthorId() == null ? 0 : book.getAuthorId());
+            });
 
-        // Deduct stock from books
-        cartItems.forEach((bookId, quantity) -> {
-            Book book = BookResource.books.get(bookId);
-            book.setStock(book.getStock() - quantity);
-        });
+            order = new Order();
+            order.setId(orderIdCounter.getAndIncrement());
+            order.setCustomerId(customerId);
+            order.setItems(items);
+            order.setOrderDate(new Date());
+            // What each line cost at checkout and whose book it was, so revenue and its
+            // attribution survive later price changes, re-authoring and deletes
+            int[] cents = new int[order.lineCount()];
+            int[] authors = new int[order.lineCount()];
+            for (int i = 0; i < cents.length; i++) {
+                cents[i] = unitPrices.getInt(order.bookIdAt(i));
+                authors[i] = authorIds.getInt(order.bookIdAt(i));
+            }
+            order.setUnitPriceCents(cents);
+            order.setAuthorIds(authors);
 
-        // Clear the cart
-        customer.getCart().getItems().clear();
+            // Clear the cart. One journal record holds both the order and the emptied
+            // cart, so a crash cannot keep one without the other; the reserved stock
+            // stays with whichever holds it
+            cart.clear();
+            CartResource.cartTouched(customer);
+            Store.checkedOut(order);
+        }
 
         // Save order
         orders.put(order.getId(), order);
+        ordersByCustomer.computeIfAbsent(customerId, key -> new ConcurrentSkipListSet<>(ORDER_HISTORY)).add(order);
+        ordersVersion.increment();
+        SalesAnalytics.record(order);
+        Store.awaitDurable();
 
-        LOGGER.info("[SERVER] Order created. ID: " + order.getId());
+        LOGGER.info("Order created", "id", order.getId(), "customerId", customerId);
         return Response.status(Response.Status.CREATED).entity(order).build();
     }
 
-    // GET /customers/{customerId}/orders
+    // GET /customers/{customerId}/orders?limit=&cursor=&from=&to=
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getOrdersByCustomer(@PathParam("customerId") Integer customerId) {
-        LOGGER.info("[SERVER] [GET /customers/" + customerId + "/orders] Fetching orders");
-        List<Order> customerOrders = new ArrayList<>();
-        for (Order order : orders.values()) {
-            if (order.getCustomerId().equals(customerId)) {
-                customerOrders.add(order);
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
+    public Response getOrdersByCustomer(
+        @PathParam("customerId") Integer customerId,
+        @QueryParam("limit") Integer limit,
+        @QueryParam("cursor") String cursor,
+        @QueryParam("from") String from,
+        @QueryParam("to") String to
+    ) {
+        LOGGER.info("[GET /customers/{customerId}/orders] Fetching orders", "customerId", customerId);
+        int pageSize = Pagination.pageSize(limit);
+        Integer after = Pagination.decodeCursor(cursor);
+        EntityTag tag = ETags.ofCollection("orders", ordersVersion.sum(), customerId, pageSize, after, from, to);
+        return ETags.ok(httpRequest, tag, () -> pageOfOrders(customerId, pageSize, after, from, to));
+    }
+
+    private Response.ResponseBuilder pageOfOrders(Integer customerId, int pageSize, Integer cursor, String from, String to) {
+        // Lower bound: the later of 'from' and the order just past the cursor
+        Order lower = from != null ? boundary(parseDate("from", from)) : null;
+        if (cursor != null) {
+            Order last = findOrder(cursor);
+            if (last == null || !last.getCustomerId().equals(customerId)) {
+                LOGGER.warning("Invalid order cursor", "cursor", cursor);
+                throw new InvalidInputException("Invalid cursor");
+            }
+            Order next = probe(last.getOrderDate(), last.getId() + 1);
+            if (lower == null || ORDER_HISTORY.compare(next, lower) > 0) {
+                lower = next;
             }
         }
-        return Response.ok(customerOrders).build();
+        // Upper bound: 'to' (exclusive)
+        Order upper = to != null ? boundary(parseDate("to", to)) : null;
+
+        return Pagination.page(historyOf(customerId, lower, upper), pageSize, Order::getId);
+    }
+
+    // GET /customers/{customerId}/orders/export?format=json|ndjson
+    @GET
+    @Path("/export")
+    @Produces({MediaType.APPLICATION_JSON, JsonStreaming.APPLICATION_NDJSON})
+    public Response exportOrders(
+        @PathParam("customerId") Integer customerId,
+        @QueryParam("format") String format
+    ) {
+        LOGGER.info("[GET /customers/{customerId}/orders/export] Streaming orders", "customerId", customerId);
+        return JsonStreaming.export(historyOf(customerId, null, null), format);
     }
 
     // GET /customers/{customerId}/orders/{orderId}
     @GET
     @Path("/{orderId}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, CborProvider.APPLICATION_CBOR})
     public Response getOrderById(
         @PathParam("customerId") Integer customerId,
         @PathParam("orderId") Integer orderId
     ) {
-        LOGGER.info("[SERVER] [GET /customers/" + customerId + "/orders/" + orderId + "] Fetching order");
-        Order order = orders.get(orderId);
+        LOGGER.info("[GET /customers/{customerId}/orders/{orderId}] Fetching order", "customerId", customerId, "orderId", orderId);
+        Order order = findOrder(orderId);
         if (order == null || !order.getCustomerId().equals(customerId)) {
-            LOGGER.warning("[SERVER] Order not found: " + orderId);
+            LOGGER.warning("Order not found", "orderId", orderId);
             throw new OrderNotFoundException("Order ID " + orderId + " not found");
         }
-        return Response.ok(order).build();
+        return ETags.ok(httpRequest, ETags.of("order", orderId, order.version()), () -> Response.ok(order));
+    }
+
+    // Read-only view of every order still on the heap, used for snapshots
+    public static Collection<Order> allOrders() {
+        return Collections.unmodifiableCollection(orders.values());
+    }
+
+    // Heap first: an order being archived is briefly in both tiers
+    private static Order findOrder(Integer orderId) {
+        Order order = orders.get(orderId);
+        return order != null ? order : OrderArchive.find(orderId);
+    }
+
+    // The customer's history from 'lower' (inclusive) to 'upper' (exclusive), either
+    // may be null. Heap and archived orders are merged lazily, so a page only decodes
+    // the archived orders it returns, plus one to look ahead.
+    private static Iterator<Order> historyOf(Integer customerId, Order lower, Order upper) {
+        NavigableSet<Order> heap = ordersByCustomer.getOrDefault(customerId, Collections.emptyNavigableSet());
+        if (lower != null && upper != null) {
+            heap = ORDER_HISTORY.compare(lower, upper) < 0
+                ? heap.subSet(lower, true, upper, false)
+                : Collections.emptyNavigableSet();
+        } else if (lower != null) {
+            heap = heap.tailSet(lower, true);
+        } else if (upper != null) {
+            heap = heap.headSet(upper, false);
+        }
+
+        List<Iterator<Order>> sources = lower == null
+            ? OrderArchive.historyOf(customerId, Long.MIN_VALUE, Integer.MIN_VALUE)
+            : OrderArchive.historyOf(customerId, lower.getOrderDate().getTime(), lower.getId());
+        if (sources.isEmpty()) {
+            return heap.iterator();
+        }
+        sources.add(heap.iterator());
+        return new MergedHistory(sources, upper);
+    }
+
+    // K-way merge of sources that are each in history order, up to 'upper'
+    // (exclusive). An order being archived is briefly in both tiers; equal orders
+    // come out next to each other and only the first is kept.
+    private static final class MergedHistory implements Iterator<Order> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>();
+        private final Order upper;
+        private Order last;
+
+        MergedHistory(List<Iterator<Order>> sources, Order upper) {
+            this.upper = upper;
+            for (Iterator<Order> source : sources) {
+                if (source.hasNext()) heads.add(new Head(source));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!heads.isEmpty()) {
+                Order order = heads.peek().order;
+                if (upper != null && ORDER_HISTORY.compare(order, upper) >= 0) {
+                    heads.clear();
+                } else if (last != null && ORDER_HISTORY.compare(order, last) == 0) {
+                    advance();
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Order next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            last = heads.peek().order;
+            advance();
+            return last;
+        }
+
+        private void advance() {
+            Head head = heads.poll();
+            if (head.source.hasNext()) {
+                head.order = head.source.next();
+                heads.add(head);
+            }
+        }
+
+        private static final class Head implements Comparable<Head> {
+            final Iterator<Order> source;
+            Order order;
+
+            Head(Iterator<Order> source) {
+                this.source = source;
+                this.order = source.next();
+            }
+
+            @Override
+            public int compareTo(Head other) {
+                return ORDER_HISTORY.compare(order, other.order);
+            }
+        }
+    }
+
+    // Archiving: the oldest heap orders, ascending by id, up to the first one
+    // placed at or after 'cutoffMillis'
+    public static List<Order> archivable(long cutoffMillis, int limit) {
+        List<Order> batch = new ArrayList<>();
+        for (Order order : orders.values()) {
+            if (batch.size() == limit || order.getOrderDate().getTime() >= cutoffMillis) break;
+            batch.add(order);
+        }
+        return batch;
+    }
+
+    // Archiving: drops orders the archive now holds from the heap
+    public static void evict(List<Order> archived) {
+        for (Order order : archived) {
+            orders.remove(order.getId());
+            NavigableSet<Order> history = ordersByCustomer.get(order.getCustomerId());
+            if (history != null) history.remove(order);
+        }
+    }
+
+    public static void restoreIdsThrough(int lastId) {
+        orderIdCounter.accumulateAndGet(lastId + 1, Math::max);
+    }
+
+    // Recovery: orders are immutable once placed, so this is a plain insert;
+    // orders already archived stay in the archive
+    public static void restore(Order order) {
+        if (!OrderArchive.contains(order.getId()) && orders.putIfAbsent(order.getId(), order) == null) {
+            ordersByCustomer.computeIfAbsent(order.getCustomerId(), key -> new ConcurrentSkipListSet<>(ORDER_HISTORY))
+                .add(order);
+            SalesAnalytics.record(order);
+        }
+        orderIdCounter.accumulateAndGet(order.getId() + 1, Math::max);
+    }
+
+    // Helper methods
+    // Accepts an ISO-8601 date (2024-01-31) or instant (2024-01-31T10:15:30Z)
+    static Date parseDate(String name, String value) {
+        try {
+            if (value.length() == 10) {
+                return Date.from(LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant());
+            }
+            return Date.from(Instant.parse(value));
+        } catch (DateTimeParseException e) {
+            throw new InvalidInputException("Invalid '" + name + "' date: " + value);
+        }
+    }
+
+    // Probe that sorts before every order placed at the given instant
+    private static Order boundary(Date date) {
+        return probe(date, Integer.MIN_VALUE);
+    }
+
+    private static Order probe(Date date, int id) {
+        Order probe = new Order();
+        probe.setId(id);
+        probe.setOrderDate(date);
+        return probe;
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.bookstore.resources;
+
+import com.bookstore.exceptions.InvalidInputException;
+import javax.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+// Shared limit/cursor handling for the id-ordered collection endpoints
+final class Pagination {
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private Pagination() {}
+
+    static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidInputException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    // Cursors are opaque to clients: base64url of the last id on the previous page
+    static String encodeCursor(int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(Integer.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Returns the id to resume after, or null for the first page
+    static Integer decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Invalid cursor");
+        }
+    }
+
+    // Takes at most pageSize elements; only touches one element past the page
+    static <T> Response.ResponseBuilder page(Iterator<T> source, int pageSize, ToIntFunction<T> idOf) {
+        List<T> page = new ArrayList<>(Math.min(pageSize, 16));
+        while (source.hasNext() && page.size() < pageSize) {
+            page.add(source.next());
+        }
+
+        Response.ResponseBuilder response = Response.ok(page);
+        if (source.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, encodeCursor(idOf.applyAsInt(page.get(page.size() - 1))));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,72 @@
+package com.bookstore.search;
+
+import java.util.Arrays;
+
+// Sorted ids of the books whose title contains one term, stored as a plain int[].
+// Writers are serialized; readers take a (array, size) view and scan it without
+// locking, which is safe because published slots are never modified in place:
+// appends write past the published size and inserts/removals copy the array.
+// Removing the last id retires the list for good, so the index can drop it: an
+// add that finds a retired list fails and the caller starts a new one.
+final class PostingList {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] ids = new int[2];
+    private int size;
+    private boolean retired;
+
+    // False when the list is retired and did not take the id
+    synchronized boolean add(int id) {
+        if (retired) return false;
+        if (size > 0 && ids[size - 1] >= id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) return true;
+            // Out-of-order id (title update): copy so readers never see a shifted slot
+            int insert = -at - 1;
+            int[] copy = new int[Math.max(ids.length, size + 1)];
+            System.arraycopy(ids, 0, copy, 0, insert);
+            copy[insert] = id;
+            System.arraycopy(ids, insert, copy, insert + 1, size - insert);
+            ids = copy;
+            size++;
+            return true;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+        ids[size++] = id;
+        return true;
+    }
+
+    // True when this removed the last id and retired the list
+    synchronized boolean remove(int id) {
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        if (at < 0) return false;
+        int[] copy = new int[ids.length];
+        System.arraycopy(ids, 0, copy, 0, at);
+        System.arraycopy(ids, at + 1, copy, at, size - at - 1);
+        ids = copy;
+        size--;
+        retired = size == 0;
+        return retired;
+    }
+
+    // Stable view for lock-free scanning: the first 'length' entries of 'ids'
+    synchronized View view() {
+        return size == 0 ? new View(EMPTY, 0) : new View(ids, size);
+    }
+
+    static final class View {
+        final int[] ids;
+        final int length;
+
+        View(int[] ids, int length) {
+            this.ids = ids;
+            this.length = length;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, length, id) >= 0;
+        }
+    }
+}
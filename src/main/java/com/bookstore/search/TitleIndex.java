@@ -0,0 +1,203 @@
+package com.bookstore.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Incremental inverted index over book titles.
+// Query semantics: every word must match; the last word also matches as a
+// prefix (type-ahead). Ranking: titles where the last word matches a whole
+// word first, then shorter titles, then lower ids.
+public final class TitleIndex {
+    // Bounds the work a very short prefix (e.g. "a") can trigger
+    static final int MAX_PREFIX_TERMS = 1024;
+
+    private final ConcurrentNavigableMap<String, PostingList> terms = new ConcurrentSkipListMap<>();
+    // bookId -> number of distinct words in its title, used for ranking
+    private volatile int[] titleLengths = new int[1024];
+
+    public void add(int bookId, String title) {
+        Set<String> words = tokenize(title);
+        for (String word : words) {
+            PostingList postings;
+            while (!(postings = terms.computeIfAbsent(word, key -> new PostingList())).add(bookId)) {
+                // Emptied by a concurrent remove that has not dropped it yet
+                terms.remove(word, postings);
+            }
+        }
+        setTitleLength(bookId, words.size());
+    }
+
+    // Drops a term once its last book is gone, so title edits and deletes do not
+    // leave dead terms behind to grow the map and use up MAX_PREFIX_TERMS
+    public void remove(int bookId, String title) {
+        for (String word : tokenize(title)) {
+            PostingList postings = terms.get(word);
+            if (postings != null && postings.remove(bookId)) {
+                terms.remove(word, postings);
+            }
+        }
+    }
+
+    // Returns up to 'limit' matching book ids, best first
+    public int[] search(String query, int limit) {
+        List<String> words = new ArrayList<>(tokenize(query));
+        if (words.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        String prefix = words.remove(words.size() - 1);
+
+        // Every book whose title has a word starting with the last query word
+        BitSet prefixMatches = new BitSet();
+        int expanded = 0;
+        for (Map.Entry<String, PostingList> term : terms.tailMap(prefix, true).entrySet()) {
+            if (!term.getKey().startsWith(prefix) || expanded++ == MAX_PREFIX_TERMS) break;
+            PostingList.View view = term.getValue().view();
+            for (int i = 0; i < view.length; i++) {
+                prefixMatches.set(view.ids[i]);
+            }
+        }
+        PostingList exactLast = terms.get(prefix);
+        PostingList.View wholeWord = exactLast == null ? null : exactLast.view();
+
+        TopK top = new TopK(limit);
+        int[] lengths = titleLengths;
+        if (words.isEmpty()) {
+            for (int id = prefixMatches.nextSetBit(0); id >= 0; id = prefixMatches.nextSetBit(id + 1)) {
+                top.offer(id, wholeWord != null && wholeWord.contains(id), lengthOf(lengths, id));
+            }
+            return top.result();
+        }
+
+        // Intersect the exact words, driving from the shortest posting list
+        List<PostingList.View> required = new ArrayList<>(words.size());
+        for (String word : new LinkedHashSet<>(words)) {
+            PostingList postings = terms.get(word);
+            if (postings == null) return new int[0];
+            required.add(postings.view());
+        }
+        required.sort(Comparator.comparingInt(view -> view.length));
+        PostingList.View driver = required.get(0);
+        candidates:
+        for (int i = 0; i < driver.length; i++) {
+            int id = driver.ids[i];
+            if (!prefixMatches.get(id)) continue;
+            for (int r = 1; r < required.size(); r++) {
+                if (!required.get(r).contains(id)) continue candidates;
+            }
+            top.offer(id, wholeWord != null && wholeWord.contains(id), lengthOf(lengths, id));
+        }
+        return top.result();
+    }
+
+    // Lower-cased, accent-stripped alphanumeric words, deduplicated in order
+    static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) return words;
+        String normalized = text.toLowerCase(Locale.ROOT);
+        if (!isAscii(normalized)) {
+            normalized = Normalizer.normalize(normalized, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        }
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) return false;
+        }
+        return true;
+    }
+
+    private synchronized void setTitleLength(int bookId, int length) {
+        int[] lengths = titleLengths;
+        if (bookId >= lengths.length) {
+            lengths = Arrays.copyOf(lengths, Math.max(bookId + 1, lengths.length * 2));
+        }
+        lengths[bookId] = length;
+        titleLengths = lengths;
+    }
+
+    private static int lengthOf(int[] lengths, int id) {
+        return id < lengths.length ? lengths[id] : 0;
+    }
+
+    // Bounded min-heap of packed (score, id) longs; the root is the worst kept result
+    private static final class TopK {
+        private final long[] heap;
+        private int size;
+
+        TopK(int k) {
+            heap = new long[k];
+        }
+
+        void offer(int id, boolean wholeWord, int titleLength) {
+            long score = ((wholeWord ? 1L : 0L) << 62)
+                | ((long) (0xFFFF - Math.min(titleLength, 0xFFFF)) << 31)
+                | (Integer.MAX_VALUE - id);
+            if (size < heap.length) {
+                heap[size] = score;
+                siftUp(size++);
+            } else if (score > heap[0]) {
+                heap[0] = score;
+                siftDown(0);
+            }
+        }
+
+        int[] result() {
+            long[] sorted = Arrays.copyOf(heap, size);
+            Arrays.sort(sorted);
+            int[] ids = new int[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = Integer.MAX_VALUE - (int) (sorted[size - 1 - i] & Integer.MAX_VALUE);
+            }
+            return ids;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= heap[i]) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && heap[left] < heap[smallest]) smallest = left;
+                if (right < size && heap[right] < heap[smallest]) smallest = right;
+                if (smallest == i) return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}